@@ -0,0 +1,92 @@
+package study.querydsl.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 정해진 도착률(requests/sec)로 요청을 보낸다.
+ *
+ * 지연 시간은 실제로 보낸 시각이 아니라 보냈어야 할 시각부터 잰다.
+ * 서버가 느려져서 요청을 늦게 보내게 되더라도 그 대기 시간이 결과에 포함된다(coordinated omission 보정).
+ */
+class ConstantRateDriver {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final HttpClient httpClient;
+    private final int maxOutstanding;
+    private final Semaphore outstanding;
+    private final Map<String, Recorder> recorders = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> errors = new LinkedHashMap<>();
+
+    ConstantRateDriver(HttpClient httpClient, int maxOutstanding, List<String> endpoints) {
+        this.httpClient = httpClient;
+        this.maxOutstanding = maxOutstanding;
+        this.outstanding = new Semaphore(maxOutstanding);
+        for (String endpoint : endpoints) {
+            recorders.put(endpoint, new Recorder(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(endpoint, new AtomicLong());
+        }
+    }
+
+    /**
+     * @return 측정 구간에서 endpoint 별로 기록한 지연 시간(마이크로초)
+     */
+    Map<String, Histogram> run(RequestMix mix, int ratePerSecond, Duration duration) throws InterruptedException {
+        recorders.values().forEach(Recorder::reset);
+        errors.values().forEach(e -> e.set(0));
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        for (long intended = start; intended < end; intended += intervalNanos) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            outstanding.acquire();
+            send(mix.next(), intended);
+        }
+        // 보낸 요청이 모두 끝날 때까지 기다린다.
+        outstanding.acquire(maxOutstanding);
+        outstanding.release(maxOutstanding);
+
+        Map<String, Histogram> histograms = new LinkedHashMap<>();
+        recorders.forEach((endpoint, recorder) -> histograms.put(endpoint, recorder.getIntervalHistogram()));
+        return histograms;
+    }
+
+    long errors(String endpoint) {
+        return errors.get(endpoint).get();
+    }
+
+    private void send(RequestMix.Request request, long intendedStartNanos) {
+        HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(request.getUri()))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, e) -> {
+                    long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStartNanos);
+                    recorders.get(request.getEndpoint()).recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+                    if (e != null || response.statusCode() >= 400) {
+                        errors.get(request.getEndpoint()).incrementAndGet();
+                    }
+                    outstanding.release();
+                });
+    }
+}
@@ -0,0 +1,131 @@
+package study.querydsl.loadtest;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.engine.spi.ManagedEntity;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.dto.MemberIngestRow;
+import study.querydsl.entity.AssociationMode;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberBulkRepository;
+
+import javax.persistence.EntityManager;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 관리 중인 회원이 많을 때의 flush 비용과 힙.
+ *
+ * 회원 n 명을 한 영속성 컨텍스트에 읽어 두고
+ * - 영속성 컨텍스트가 살아있는 상태에서 GC 후 남은 힙 증가량 (엔티티 + 스냅샷)
+ * - 아무것도 바꾸지 않은 flush 시간
+ * - 그 중 일부(benchmark.dirty-ratio)의 팀만 바꾼 flush 시간
+ * 을 잰다. enhance 여부는 빌드에서 정해지므로 두 번 실행해 비교한다.
+ *
+ * ./gradlew flushBenchmark -Dbenchmark.sizes=10000,100000,1000000
+ * ./gradlew flushBenchmark -PhibernateEnhance=false -Dbenchmark.sizes=10000,100000,1000000
+ */
+public class FlushBenchmark {
+
+    public static void main(String[] args) {
+        int[] sizes = Arrays.stream(System.getProperty("benchmark.sizes", "10000,100000").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        double dirtyRatio = Double.parseDouble(System.getProperty("benchmark.dirty-ratio", "0.01"));
+        int rounds = Integer.getInteger("benchmark.rounds", 3);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=loadtest",
+                        "--spring.datasource.url=jdbc:h2:mem:flush;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.properties.hibernate.show_sql=false",
+                        "--decorator.datasource.p6spy.enable-logging=false",
+                        "--logging.level.org.hibernate.sql=warn");
+        try {
+            seed(context, Arrays.stream(sizes).max().orElse(0));
+
+            System.out.printf("%nenhanced=%s, dirty-ratio=%.3f%n", ManagedEntity.class.isAssignableFrom(Member.class), dirtyRatio);
+            System.out.printf("%10s %14s %16s %16s%n", "members", "retained(MB)", "cleanFlush(ms)", "dirtyFlush(ms)");
+            for (int size : sizes) {
+                // 첫 라운드는 워밍업이다.
+                for (int round = 0; round <= rounds; round++) {
+                    run(context, size, dirtyRatio, round > 0);
+                }
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void seed(ConfigurableApplicationContext context, int members) {
+        Iterator<MemberIngestRow> rows = IntStream.range(0, members)
+                .mapToObj(i -> new MemberIngestRow("member" + i, i % 100, "team" + (i % 10)))
+                .iterator();
+        context.getBean(MemberBulkRepository.class).insert(rows, 1000, 10);
+    }
+
+    private static void run(ConfigurableApplicationContext context, int size, double dirtyRatio, boolean print) {
+        EntityManager em = context.getBean(EntityManager.class);
+        JPAQueryFactory queryFactory = context.getBean(JPAQueryFactory.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            long heapBefore = usedHeapAfterGc();
+
+            List<Member> members = queryFactory
+                    .selectFrom(member)
+                    .orderBy(member.id.asc())
+                    .limit(size)
+                    .fetch();
+
+            long retained = usedHeapAfterGc() - heapBefore;
+
+            long cleanStart = System.nanoTime();
+            em.flush();
+            long cleanNanos = System.nanoTime() - cleanStart;
+
+            // 두 팀 사이로 옮겨 team_id 만 바꾼다. 팀의 회원 목록은 읽지 않는다.
+            List<Team> teams = queryFactory
+                    .selectFrom(team)
+                    .orderBy(team.id.asc())
+                    .limit(2)
+                    .fetch();
+            int step = Math.max(1, (int) Math.round(1 / dirtyRatio));
+            for (int i = 0; i < members.size(); i += step) {
+                Member target = members.get(i);
+                Team current = target.getTeam();
+                Team next = current != null && teams.get(0).getId().equals(current.getId()) ? teams.get(1) : teams.get(0);
+                target.changeTeam(next, AssociationMode.LAZY_SAFE);
+            }
+            long dirtyStart = System.nanoTime();
+            em.flush();
+            long dirtyNanos = System.nanoTime() - dirtyStart;
+
+            if (print) {
+                System.out.printf("%10d %14.1f %16.2f %16.2f%n",
+                        members.size(), retained / 1e6, cleanNanos / 1e6, dirtyNanos / 1e6);
+            }
+            status.setRollbackOnly();
+            em.clear();
+        });
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,114 @@
+package study.querydsl.loadtest;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.controller.InitMember;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MemberJpaRepository.save 와 InitMember 의 초당 insert 수를 id 생성/배치 설정별로 비교한다.
+ *
+ * baseline 은 allocation size 1(persist 마다 시퀀스 호출)에 JDBC 배치를 끈 설정이고,
+ * tuned 는 application.yml 의 pooled-lo 시퀀스와 정렬된 배치 insert 설정이다.
+ * 설정마다 별도의 인메모리 H2 로 애플리케이션을 띄운다.
+ *
+ * ./gradlew insertBenchmark -Dbenchmark.members=100000 -Dbenchmark.rounds=5
+ */
+public class InsertBenchmark {
+
+    private static final String[] BASELINE = {
+            "--spring.jpa.properties.querydsl.id.allocation_size=1",
+            "--spring.jpa.properties.hibernate.jdbc.batch_size=0",
+            "--spring.jpa.properties.hibernate.order_inserts=false",
+            "--spring.jpa.properties.hibernate.order_updates=false"
+    };
+    private static final String[] TUNED = {};
+
+    public static void main(String[] args) {
+        int members = Integer.getInteger("benchmark.members", 50_000);
+        int perTransaction = Integer.getInteger("benchmark.per-transaction", 1_000);
+        int initRounds = Integer.getInteger("benchmark.init-rounds", 200);
+        int rounds = Integer.getInteger("benchmark.rounds", 3);
+
+        System.out.printf("%n%-9s %-11s %12s %14s%n", "config", "workload", "inserts", "inserts/s");
+        for (String config : List.of("baseline", "tuned")) {
+            ConfigurableApplicationContext context = start(config, config.equals("baseline") ? BASELINE : TUNED);
+            try {
+                // 첫 라운드는 JIT 와 커넥션 풀 워밍업이다.
+                for (int round = 0; round <= rounds; round++) {
+                    long saved = save(context, members, perTransaction);
+                    long initialized = initMember(context, initRounds);
+                    if (round > 0) {
+                        print(config, "save", members, saved);
+                        print(config, "initMember", initRounds * 102L, initialized);
+                    }
+                }
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String config, String[] overrides) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.profiles.active=loadtest",
+                "--spring.datasource.url=jdbc:h2:mem:insert-" + config + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.properties.hibernate.show_sql=false",
+                "--decorator.datasource.p6spy.enable-logging=false",
+                "--logging.level.org.hibernate.sql=warn"));
+        args.addAll(List.of(overrides));
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+    }
+
+    /**
+     * perTransaction 건마다 커밋하고 영속성 컨텍스트를 비운다. 경과 시간(나노초)을 반환한다.
+     */
+    private static long save(ConfigurableApplicationContext context, int members, int perTransaction) {
+        MemberJpaRepository repository = context.getBean(MemberJpaRepository.class);
+        EntityManager em = context.getBean(EntityManager.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        long start = System.nanoTime();
+        for (int from = 0; from < members; from += perTransaction) {
+            int to = Math.min(members, from + perTransaction);
+            int first = from;
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = first; i < to; i++) {
+                    repository.save(new Member("member" + i, i % 100));
+                }
+                em.flush();
+                em.clear();
+            });
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * InitMember 와 같은 작업(팀 2개, 회원 100명)을 rounds 번 반복한다.
+     */
+    private static long initMember(ConfigurableApplicationContext context, int rounds) {
+        InitMember.InitMemberService initMemberService = context.getBean(InitMember.InitMemberService.class);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            initMemberService.init();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void print(String config, String workload, long inserts, long elapsedNanos) {
+        System.out.printf("%-9s %-11s %12d %14.0f%n",
+                config, workload, inserts, inserts / (elapsedNanos / 1_000_000_000.0));
+    }
+}
@@ -0,0 +1,127 @@
+package study.querydsl.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.dto.MemberIngestRow;
+import study.querydsl.repository.MemberBulkRepository;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+/**
+ * /v1, /v2, /v3 members 의 HTTP 부하 테스트.
+ *
+ * 인메모리 H2 로 애플리케이션을 띄우고 loadtest.seed-members 건을 적재한 뒤,
+ * loadtest.rate 의 일정한 도착률로 요청을 보내고 HdrHistogram 으로 지연 시간을 기록한다.
+ * 결과는 loadtest.output 아래에 endpoint 별 .hgrm(퍼센타일 분포)과 .hlog(빌드 간 비교용) 로 남긴다.
+ *
+ * ./gradlew loadTest -Dloadtest.rate=500 -Dloadtest.duration=60
+ */
+public class MemberLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int seedMembers = Integer.getInteger("loadtest.seed-members", 10_000);
+        int teams = Integer.getInteger("loadtest.teams", 10);
+        int rate = Integer.getInteger("loadtest.rate", 200);
+        Duration warmup = Duration.ofSeconds(Integer.getInteger("loadtest.warmup", 10));
+        Duration duration = Duration.ofSeconds(Integer.getInteger("loadtest.duration", 30));
+        int maxOutstanding = Integer.getInteger("loadtest.max-outstanding", 10_000);
+        File output = new File(System.getProperty("loadtest.output", "build/loadtest"));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .run("--spring.profiles.active=loadtest",
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.properties.hibernate.show_sql=false",
+                        "--decorator.datasource.p6spy.enable-logging=false",
+                        "--logging.level.org.hibernate.sql=warn");
+        // HttpClient 는 executor 를 닫지 않으므로 직접 닫아야 JVM 이 끝난다.
+        ExecutorService httpExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+        try {
+            seed(context, seedMembers, teams);
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            RequestMix mix = new RequestMix("http://localhost:" + port,
+                    System.getProperty("loadtest.endpoints", "v1=1,v2=2,v3=2"),
+                    System.getProperty("loadtest.queries", "|teamName=team3|ageGoe=20&ageLoe=40|username=member42|teamName=team1&ageGoe=50"),
+                    System.getProperty("loadtest.pages", "1,2,10"),
+                    Integer.getInteger("loadtest.size", 15),
+                    Long.getLong("loadtest.random-seed", 1L));
+
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .executor(httpExecutor)
+                    .build();
+            ConstantRateDriver driver = new ConstantRateDriver(httpClient, maxOutstanding, mix.endpoints());
+
+            driver.run(mix, rate, warmup);
+            Map<String, Histogram> histograms = driver.run(mix, rate, duration);
+
+            report(histograms, driver, duration, rate, output);
+        } finally {
+            httpExecutor.shutdownNow();
+            context.close();
+        }
+    }
+
+    private static void seed(ConfigurableApplicationContext context, int members, int teams) {
+        Iterator<MemberIngestRow> rows = IntStream.range(0, members)
+                .mapToObj(i -> new MemberIngestRow("member" + i, i % 100, "team" + (i % teams)))
+                .iterator();
+        context.getBean(MemberBulkRepository.class).insert(rows, 1000, 10);
+    }
+
+    private static void report(Map<String, Histogram> histograms, ConstantRateDriver driver,
+                               Duration duration, int rate, File output) throws IOException {
+        output.mkdirs();
+        Histogram all = new Histogram(3);
+
+        System.out.printf("%n%-6s %10s %10s %10s %10s %10s %10s %8s%n",
+                "", "count", "req/s", "p50(ms)", "p99(ms)", "p99.9(ms)", "max(ms)", "errors");
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            all.add(histogram);
+            print(entry.getKey(), histogram, duration, driver.errors(entry.getKey()));
+            write(histogram, new File(output, entry.getKey()));
+        }
+        print("all", all, duration, histograms.keySet().stream().mapToLong(driver::errors).sum());
+        write(all, new File(output, "all"));
+        System.out.printf("target rate %d req/s, results in %s%n", rate, output.getAbsolutePath());
+    }
+
+    private static void print(String name, Histogram histogram, Duration duration, long errors) {
+        System.out.printf("%-6s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %8d%n",
+                name,
+                histogram.getTotalCount(),
+                histogram.getTotalCount() / (double) duration.getSeconds(),
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0,
+                errors);
+    }
+
+    private static void write(Histogram histogram, File base) throws IOException {
+        try (PrintStream out = new PrintStream(new FileOutputStream(base.getPath() + ".hgrm"))) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+        try (PrintStream out = new PrintStream(new FileOutputStream(base.getPath() + ".hlog"))) {
+            HistogramLogWriter writer = new HistogramLogWriter(out);
+            writer.outputLogFormatVersion();
+            writer.outputLegend();
+            writer.outputIntervalHistogram(histogram);
+        }
+    }
+}
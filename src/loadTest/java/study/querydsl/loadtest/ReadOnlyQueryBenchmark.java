@@ -0,0 +1,111 @@
+package study.querydsl.loadtest;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.dto.MemberIngestRow;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberBulkRepository;
+import study.querydsl.repository.MemberTestRepository;
+import study.querydsl.repository.support.HintedJPAQuery;
+
+import javax.persistence.EntityManager;
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 대량 조회에서 읽기 전용 모드의 힙/flush 비용 차이.
+ *
+ * 쓰기 트랜잭션 안에서 회원 전체를 엔티티로 읽은 뒤
+ * - 조회 중 할당한 바이트 (스레드 할당량)
+ * - 영속성 컨텍스트가 살아있는 상태에서 GC 후 남은 힙 증가량 (엔티티 + 스냅샷)
+ * - em.flush() 시간 (dirty checking)
+ * 을 managed(기본), readOnly(빌더 플래그), @ReadOnlyQuery(MemberTestRepository.basicSelectFrom) 로 비교한다.
+ *
+ * ./gradlew readOnlyBenchmark -Dbenchmark.members=200000
+ */
+public class ReadOnlyQueryBenchmark {
+
+    public static void main(String[] args) {
+        int members = Integer.getInteger("benchmark.members", 100_000);
+        int rounds = Integer.getInteger("benchmark.rounds", 3);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=loadtest",
+                        "--spring.datasource.url=jdbc:h2:mem:readonly;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.properties.hibernate.show_sql=false",
+                        "--decorator.datasource.p6spy.enable-logging=false",
+                        "--logging.level.org.hibernate.sql=warn");
+        try {
+            seed(context, members);
+
+            JPAQueryFactory queryFactory = context.getBean(JPAQueryFactory.class);
+            MemberTestRepository memberTestRepository = context.getBean(MemberTestRepository.class);
+
+            System.out.printf("%n%-10s %10s %14s %14s %12s%n", "mode", "rows", "alloc(MB)", "retained(MB)", "flush(ms)");
+            // 첫 라운드는 워밍업이다.
+            for (int round = 0; round <= rounds; round++) {
+                boolean print = round > 0;
+                run(context, "managed", print, () -> queryFactory.selectFrom(member).fetch());
+                run(context, "readOnly", print, () -> ((HintedJPAQuery<Member>) queryFactory.selectFrom(member)).readOnly(500).fetch());
+                run(context, "annotated", print, memberTestRepository::basicSelectFrom);
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void seed(ConfigurableApplicationContext context, int members) {
+        Iterator<MemberIngestRow> rows = IntStream.range(0, members)
+                .mapToObj(i -> new MemberIngestRow("member" + i, i % 100, "team" + (i % 10)))
+                .iterator();
+        context.getBean(MemberBulkRepository.class).insert(rows, 1000, 10);
+    }
+
+    private static void run(ConfigurableApplicationContext context, String mode, boolean print, Supplier<List<Member>> read) {
+        EntityManager em = context.getBean(EntityManager.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            long heapBefore = usedHeapAfterGc();
+            long allocatedBefore = allocatedBytes();
+
+            List<Member> result = read.get();
+
+            long allocated = allocatedBytes() - allocatedBefore;
+            long retained = usedHeapAfterGc() - heapBefore;
+
+            long flushStart = System.nanoTime();
+            em.flush();
+            long flushNanos = System.nanoTime() - flushStart;
+
+            if (print) {
+                System.out.printf("%-10s %10d %14.1f %14.1f %12.2f%n",
+                        mode, result.size(), allocated / 1e6, retained / 1e6, flushNanos / 1e6);
+            }
+            em.clear();
+        });
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
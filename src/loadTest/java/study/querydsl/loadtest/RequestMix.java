@@ -0,0 +1,79 @@
+package study.querydsl.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * 엔드포인트, 검색 조건(MemberSearchCondition 파라미터), 페이지를 가중치에 따라 섞는다.
+ *
+ * endpoints: "v1=1,v2=2,v3=2"
+ * queries: "|teamName=team3|ageGoe=20&ageLoe=40|username=member42" (빈 값은 조건 없음)
+ * pages: "1,2,10"
+ */
+class RequestMix {
+
+    private final String baseUrl;
+    private final List<String> weightedEndpoints = new ArrayList<>();
+    private final List<String> queries;
+    private final List<String> pages;
+    private final int size;
+    private final Random random;
+
+    RequestMix(String baseUrl, String endpoints, String queries, String pages, int size, long seed) {
+        this.baseUrl = baseUrl;
+        for (String entry : endpoints.split(",")) {
+            String[] endpointAndWeight = entry.trim().split("=");
+            int weight = endpointAndWeight.length > 1 ? Integer.parseInt(endpointAndWeight[1]) : 1;
+            for (int i = 0; i < weight; i++) {
+                weightedEndpoints.add(endpointAndWeight[0]);
+            }
+        }
+        this.queries = Arrays.asList(queries.split("\\|", -1));
+        this.pages = Arrays.asList(pages.split(","));
+        this.size = size;
+        this.random = new Random(seed);
+    }
+
+    List<String> endpoints() {
+        return weightedEndpoints.stream().distinct().collect(Collectors.toList());
+    }
+
+    Request next() {
+        String endpoint = pick(weightedEndpoints);
+        StringBuilder uri = new StringBuilder(baseUrl).append('/').append(endpoint).append("/members?");
+        String query = pick(queries);
+        if (!query.isEmpty()) {
+            uri.append(query).append('&');
+        }
+        if (!endpoint.equals("v1")) {
+            uri.append("page=").append(pick(pages).trim()).append("&size=").append(size);
+        }
+        return new Request(endpoint, uri.toString());
+    }
+
+    private <T> T pick(List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    static class Request {
+
+        private final String endpoint;
+        private final String uri;
+
+        Request(String endpoint, String uri) {
+            this.endpoint = endpoint;
+            this.uri = uri;
+        }
+
+        String getEndpoint() {
+            return endpoint;
+        }
+
+        String getUri() {
+            return uri;
+        }
+    }
+}
@@ -4,9 +4,13 @@ import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import study.querydsl.entity.EntityChangePublisher;
+import study.querydsl.repository.support.HintedJPAQueryFactory;
 
 import javax.persistence.EntityManager;
 
+@EnableScheduling
 @SpringBootApplication
 public class QuerydslApplication {
 
@@ -15,8 +19,8 @@ public class QuerydslApplication {
 	}
 
 	@Bean
-	public JPAQueryFactory initJPAQueryFactory(EntityManager em) {
-		return new JPAQueryFactory(em);
+	public JPAQueryFactory initJPAQueryFactory(EntityManager em, EntityChangePublisher changePublisher) {
+		return new HintedJPAQueryFactory(em, changePublisher);
 	}
 
 }
@@ -2,9 +2,11 @@ package study.querydsl.config.P6spy;
 
 import com.p6spy.engine.spy.P6SpyOptions;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
 import javax.annotation.PostConstruct;
 
+@Lazy(false)
 @Configuration
 public class P6spyLogMessageFormatConfiguration {
     @PostConstruct
@@ -0,0 +1,31 @@
+package study.querydsl.config.P6spy;
+
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * 느린 쿼리 한 건. 실행 계획은 비동기로 채워지므로 처음에는 null 이다.
+ */
+@Getter
+public class SlowQuery {
+
+    private final Instant executedAt;
+    private final long elapsedMillis;
+    private final String sql;
+    private final String caller;
+    private final String error;
+    private volatile String plan;
+
+    public SlowQuery(Instant executedAt, long elapsedMillis, String sql, String caller, String error) {
+        this.executedAt = executedAt;
+        this.elapsedMillis = elapsedMillis;
+        this.sql = sql;
+        this.caller = caller;
+        this.error = error;
+    }
+
+    void setPlan(String plan) {
+        this.plan = plan;
+    }
+}
@@ -0,0 +1,170 @@
+package study.querydsl.config.P6spy;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * P6spy 이벤트로 threshold 를 넘긴 쿼리를 최근 capacity 건까지 보관한다.
+ *
+ * 값이 바인딩된 SQL, 걸린 시간, 호출한 애플리케이션 메서드(repository 우선)를 남기고
+ * EXPLAIN 은 별도 스레드에서 실행해 나중에 채운다. EXPLAIN 대기열이 차면 실행 계획은 건너뛴다.
+ * DataSource 가 이 리스너에 의존하므로 DataSource 는 쓸 때 꺼낸다.
+ * 값이 바인딩된 SQL 에는 개인 정보가 들어 있을 수 있으므로 querydsl.slow-query.enabled=true 일 때만 켠다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "querydsl.slow-query.enabled", havingValue = "true")
+public class SlowQueryRecorder extends SimpleJdbcEventListener {
+
+    private static final String APP_PACKAGE = "study.querydsl.";
+    private static final String REPOSITORY_PACKAGE = "study.querydsl.repository.";
+    private static final String SELF_PACKAGE = "study.querydsl.config.P6spy.";
+
+    private final ObjectProvider<DataSource> dataSource;
+    private final long thresholdNanos;
+    private final int capacity;
+    private final boolean explain;
+    private final Deque<SlowQuery> entries = new ArrayDeque<>();
+    private final ThreadPoolExecutor explainExecutor;
+
+    public SlowQueryRecorder(ObjectProvider<DataSource> dataSource,
+                             @Value("${querydsl.slow-query.threshold:200ms}") Duration threshold,
+                             @Value("${querydsl.slow-query.capacity:100}") int capacity,
+                             @Value("${querydsl.slow-query.explain:true}") boolean explain) {
+        this.dataSource = dataSource;
+        this.thresholdNanos = threshold.toNanos();
+        this.capacity = capacity;
+        this.explain = explain;
+        this.explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "slow-query-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (timeElapsedNanos < thresholdNanos) {
+            return;
+        }
+        String sql = statementInformation.getSqlWithValues();
+        if (sql == null || isExplain(sql)) {
+            return;
+        }
+
+        SlowQuery slowQuery = new SlowQuery(Instant.now(),
+                TimeUnit.NANOSECONDS.toMillis(timeElapsedNanos),
+                sql,
+                caller(),
+                e != null ? e.getMessage() : null);
+        add(slowQuery);
+
+        if (explain && e == null && isExplainable(sql)) {
+            explainExecutor.execute(() -> slowQuery.setPlan(explain(sql)));
+        }
+    }
+
+    public List<SlowQuery> getEntries() {
+        synchronized (entries) {
+            return new ArrayList<>(entries);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private void add(SlowQuery slowQuery) {
+        synchronized (entries) {
+            if (entries.size() == capacity) {
+                entries.removeFirst();
+            }
+            entries.addLast(slowQuery);
+        }
+    }
+
+    /**
+     * repository 패키지의 첫 호출 지점. 없으면 가장 가까운 애플리케이션 코드.
+     */
+    private static String caller() {
+        List<StackWalker.StackFrame> appFrames = StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(APP_PACKAGE)
+                        && !frame.getClassName().startsWith(SELF_PACKAGE))
+                .limit(16)
+                .collect(Collectors.toList()));
+
+        return appFrames.stream()
+                .filter(frame -> frame.getClassName().startsWith(REPOSITORY_PACKAGE))
+                .findFirst()
+                .or(() -> appFrames.stream().findFirst())
+                .map(frame -> frame.getClassName() + "." + frame.getMethodName() + ":" + frame.getLineNumber())
+                .orElse(null);
+    }
+
+    private String explain(String sql) {
+        try (Connection connection = dataSource.getObject().getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("EXPLAIN " + sql)) {
+            StringBuilder plan = new StringBuilder();
+            while (resultSet.next()) {
+                if (plan.length() > 0) {
+                    plan.append('\n');
+                }
+                plan.append(resultSet.getString(1));
+            }
+            return plan.toString();
+        } catch (SQLException | RuntimeException e) {
+            log.debug("explain failed. sql={}", sql, e);
+            return "explain failed: " + e.getMessage();
+        }
+    }
+
+    /**
+     * 이 리코더가 실행한 EXPLAIN 도 P6spy 를 거치므로 기록 대상에서 뺀다.
+     */
+    static boolean isExplain(String sql) {
+        return sql.stripLeading().regionMatches(true, 0, "explain", 0, 7);
+    }
+
+    /**
+     * EXPLAIN 은 문장을 실행하지 않지만 DDL 등은 대상이 아니다.
+     */
+    private static boolean isExplainable(String sql) {
+        String head = sql.stripLeading().toLowerCase(Locale.ROOT);
+        return head.startsWith("select") || head.startsWith("with")
+                || head.startsWith("insert") || head.startsWith("update") || head.startsWith("delete");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+}
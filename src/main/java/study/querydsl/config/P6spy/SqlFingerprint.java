@@ -0,0 +1,77 @@
+package study.querydsl.config.P6spy;
+
+import java.util.regex.Pattern;
+
+/**
+ * SQL 을 모양(fingerprint)으로 정규화한다.
+ *
+ * 문자열/숫자 리터럴은 ? 로, IN 목록은 길이와 상관없이 in (...) 로, 공백은 한 칸으로 바꾼다.
+ * 식별자 안의 숫자(member0_, col_1_0_)는 그대로 둔다.
+ */
+public final class SqlFingerprint {
+
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin \\( ?\\?(?: ?, ?\\?)* ?\\)");
+
+    private SqlFingerprint() {
+    }
+
+    public static String of(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                i = skipQuoted(sql, i);
+                out.append('?');
+            } else if (Character.isDigit(c) && !isIdentifierPart(out)) {
+                while (i < length && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                out.append('?');
+            } else if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (out.length() > 0) {
+                    out.append(' ');
+                }
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        int end = out.length();
+        while (end > 0 && (out.charAt(end - 1) == ' ' || out.charAt(end - 1) == ';')) {
+            end--;
+        }
+        out.setLength(end);
+        return IN_LIST.matcher(out).replaceAll("in (...)");
+    }
+
+    /**
+     * 'it''s' 처럼 따옴표 두 개는 문자열의 일부다.
+     */
+    private static int skipQuoted(String sql, int start) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == '\'') {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isIdentifierPart(StringBuilder out) {
+        if (out.length() == 0) {
+            return false;
+        }
+        char previous = out.charAt(out.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_' || previous == '$' || previous == '"';
+    }
+}
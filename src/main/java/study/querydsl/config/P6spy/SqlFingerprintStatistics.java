@@ -0,0 +1,188 @@
+package study.querydsl.config.P6spy;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 실행된 모든 SQL 을 fingerprint 별로 누적한다. (pg_stat_statements 와 비슷한 용도)
+ *
+ * 실행 경로에서는 LongAdder/LongAccumulator 만 갱신하므로 스레드끼리 락을 잡지 않는다.
+ * fingerprint 계산 결과는 원본 SQL 별로 캐시한다. Hibernate 는 같은 모양이면 같은 SQL 을 만들기 때문이다.
+ * 모양이 MAX_FINGERPRINTS 개를 넘으면 나머지는 OTHER 로 모은다.
+ * {@link SlowQueryRecorder} 가 실행하는 EXPLAIN 은 애플리케이션 쿼리가 아니므로 세지 않는다.
+ */
+@Component
+public class SqlFingerprintStatistics extends SimpleJdbcEventListener {
+
+    /**
+     * {@link #top(int, String)} 의 orderBy 로 쓸 수 있는 값. 그 외는 IllegalArgumentException.
+     */
+    public static final List<String> ORDER_BY = List.of("total", "calls", "mean", "max");
+
+    static final String OTHER = "(other)";
+    private static final int MAX_FINGERPRINTS = 5_000;
+    private static final int MAX_CACHED_SQL = 20_000;
+    private static final int BUCKETS = 32;
+
+    private final Map<String, String> fingerprintCache = new ConcurrentHashMap<>();
+    private final Map<String, Stats> statistics = new ConcurrentHashMap<>();
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String sql = statementInformation.getSql();
+        if (sql == null || SlowQueryRecorder.isExplain(sql)) {
+            return;
+        }
+        Stats stats = statsOf(sql);
+        stats.record(timeElapsedNanos);
+        if (e != null) {
+            stats.errors.increment();
+        }
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(PreparedStatementInformation statementInformation, long timeElapsedNanos, int rowCount, SQLException e) {
+        super.onAfterExecuteUpdate(statementInformation, timeElapsedNanos, rowCount, e);
+        addRows(statementInformation.getSql(), rowCount);
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(StatementInformation statementInformation, long timeElapsedNanos, String sql, int rowCount, SQLException e) {
+        super.onAfterExecuteUpdate(statementInformation, timeElapsedNanos, sql, rowCount, e);
+        addRows(statementInformation.getSql(), rowCount);
+    }
+
+    @Override
+    public void onAfterExecuteBatch(StatementInformation statementInformation, long timeElapsedNanos, int[] updateCounts, SQLException e) {
+        super.onAfterExecuteBatch(statementInformation, timeElapsedNanos, updateCounts, e);
+        if (updateCounts != null) {
+            long rows = 0;
+            for (int count : updateCounts) {
+                // Statement.SUCCESS_NO_INFO(-2) 는 건수를 모르는 경우다.
+                rows += Math.max(count, 0);
+            }
+            addRows(statementInformation.getSql(), rows);
+        }
+    }
+
+    /**
+     * @param orderBy total(누적 시간), calls, mean, max 중 하나
+     */
+    public List<SqlStatementStats> top(int limit, String orderBy) {
+        return statistics.entrySet().stream()
+                .map(entry -> entry.getValue().snapshot(entry.getKey()))
+                .sorted(comparator(orderBy))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        statistics.clear();
+    }
+
+    private void addRows(String sql, long rows) {
+        if (sql != null && rows > 0) {
+            statsOf(sql).rows.add(rows);
+        }
+    }
+
+    private Stats statsOf(String sql) {
+        String fingerprint = fingerprintCache.get(sql);
+        if (fingerprint == null) {
+            fingerprint = SqlFingerprint.of(sql);
+            if (fingerprintCache.size() < MAX_CACHED_SQL) {
+                fingerprintCache.put(sql, fingerprint);
+            }
+        }
+        Stats stats = statistics.get(fingerprint);
+        if (stats != null) {
+            return stats;
+        }
+        if (statistics.size() >= MAX_FINGERPRINTS) {
+            fingerprint = OTHER;
+        }
+        return statistics.computeIfAbsent(fingerprint, key -> new Stats());
+    }
+
+    private static Comparator<SqlStatementStats> comparator(String orderBy) {
+        switch (orderBy) {
+            case "calls":
+                return Comparator.comparingLong(SqlStatementStats::getCalls).reversed();
+            case "mean":
+                return Comparator.comparingDouble(SqlStatementStats::getMeanMillis).reversed();
+            case "max":
+                return Comparator.comparingDouble(SqlStatementStats::getMaxMillis).reversed();
+            case "total":
+                return Comparator.comparingDouble(SqlStatementStats::getTotalMillis).reversed();
+            default:
+                throw new IllegalArgumentException("orderBy must be one of " + ORDER_BY + ": " + orderBy);
+        }
+    }
+
+    private static class Stats {
+
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator minNanos = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+        Stats() {
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos) {
+            calls.increment();
+            totalNanos.add(nanos);
+            minNanos.accumulate(nanos);
+            maxNanos.accumulate(nanos);
+            histogram[bucket(nanos)].increment();
+        }
+
+        /**
+         * 마이크로초의 log2. 0번 구간은 1us 미만.
+         */
+        private static int bucket(long nanos) {
+            long micros = nanos / 1_000;
+            return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        }
+
+        SqlStatementStats snapshot(String fingerprint) {
+            long callCount = calls.sum();
+            long total = totalNanos.sum();
+            long min = minNanos.get();
+            Map<String, Long> buckets = new LinkedHashMap<>();
+            for (int i = 0; i < BUCKETS; i++) {
+                long count = histogram[i].sum();
+                if (count > 0) {
+                    buckets.put("<" + (1L << i) + "us", count);
+                }
+            }
+            return new SqlStatementStats(fingerprint,
+                    callCount,
+                    total / 1e6,
+                    min == Long.MAX_VALUE ? 0 : min / 1e6,
+                    maxNanos.get() / 1e6,
+                    callCount == 0 ? 0 : total / 1e6 / callCount,
+                    rows.sum(),
+                    errors.sum(),
+                    buckets);
+        }
+    }
+}
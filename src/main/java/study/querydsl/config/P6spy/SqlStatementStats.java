@@ -0,0 +1,25 @@
+package study.querydsl.config.P6spy;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * fingerprint 하나의 누적 통계 스냅샷.
+ * histogram 은 "<{상한}us" → 건수. 상한은 2의 거듭제곱 마이크로초이고 건수가 있는 구간만 담는다.
+ */
+@Getter
+@AllArgsConstructor
+public class SqlStatementStats {
+
+    private final String fingerprint;
+    private final long calls;
+    private final double totalMillis;
+    private final double minMillis;
+    private final double maxMillis;
+    private final double meanMillis;
+    private final long rows;
+    private final long errors;
+    private final Map<String, Long> histogram;
+}
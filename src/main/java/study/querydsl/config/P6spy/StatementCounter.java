@@ -0,0 +1,28 @@
+package study.querydsl.config.P6spy;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * 스레드별로 실행한 SQL 문 수를 센다.
+ *
+ * 요청 전후의 값을 비교하면 그 요청이 DB 에 실제로 쿼리를 보냈는지 알 수 있다.
+ * (304 응답, 검증 실패, 다른 요청의 결과를 받아 간 SingleFlight follower 는 보내지 않는다)
+ */
+@Component
+public class StatementCounter extends SimpleJdbcEventListener {
+
+    private final ThreadLocal<long[]> counts = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        counts.get()[0]++;
+    }
+
+    public long current() {
+        return counts.get()[0];
+    }
+}
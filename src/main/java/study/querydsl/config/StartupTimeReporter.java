@@ -0,0 +1,56 @@
+package study.querydsl.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * JVM 기동부터 ApplicationReadyEvent 까지, 그리고 첫 요청 응답까지 걸린 시간을 남긴다.
+ * querydsl.startup.exit-on-ready=true 이면 기동 직후 종료한다(AppCDS 아카이브 생성용).
+ */
+@Slf4j
+@Lazy(false)
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StartupTimeReporter extends OncePerRequestFilter {
+
+    private final AtomicBoolean firstRequest = new AtomicBoolean(true);
+
+    @Value("${querydsl.startup.exit-on-ready:false}")
+    private boolean exitOnReady;
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        log.info("startup: ready in {} ms (JVM uptime)", ManagementFactory.getRuntimeMXBean().getUptime());
+        if (exitOnReady) {
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (firstRequest.compareAndSet(true, false)) {
+                log.info("startup: first request {} completed at {} ms (JVM uptime)",
+                        request.getRequestURI(), ManagementFactory.getRuntimeMXBean().getUptime());
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package study.querydsl.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.querydsl.controller.support.AdmissionControlInterceptor;
+import study.querydsl.controller.support.DeadlineInterceptor;
+import study.querydsl.repository.SearchEngine;
+
+import java.util.Locale;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final AdmissionControlInterceptor admissionControlInterceptor;
+    private final DeadlineInterceptor deadlineInterceptor;
+
+    /**
+     * 입장 대기 시간도 예산에 들어가도록 마감 시각을 먼저 정한다.
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(deadlineInterceptor)
+                .addPathPatterns(AdmissionControlInterceptor.PATHS);
+        registry.addInterceptor(admissionControlInterceptor)
+                .addPathPatterns(AdmissionControlInterceptor.PATHS);
+    }
+
+    /**
+     * engine=sql 처럼 소문자로 보내도 받는다. 기본 enum 변환은 대소문자를 구분한다.
+     */
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverter(String.class, SearchEngine.class,
+                source -> SearchEngine.valueOf(source.trim().toUpperCase(Locale.ROOT)));
+    }
+}
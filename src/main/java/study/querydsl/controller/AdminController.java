@@ -0,0 +1,37 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.config.P6spy.SqlFingerprintStatistics;
+import study.querydsl.config.P6spy.SqlStatementStats;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final SqlFingerprintStatistics sqlFingerprintStatistics;
+
+    /**
+     * SQL 모양별 누적 통계 상위 top 건. orderBy 는 total, calls, mean, max.
+     */
+    @GetMapping("/admin/sql-stats")
+    public List<SqlStatementStats> sqlStats(@RequestParam(defaultValue = "20") int top,
+                                            @RequestParam(defaultValue = "total") String orderBy) {
+        if (!SqlFingerprintStatistics.ORDER_BY.contains(orderBy)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "orderBy must be one of " + SqlFingerprintStatistics.ORDER_BY);
+        }
+        return sqlFingerprintStatistics.top(top, orderBy);
+    }
+
+    @DeleteMapping("/admin/sql-stats")
+    public void resetSqlStats() {
+        sqlFingerprintStatistics.reset();
+    }
+}
@@ -26,7 +26,7 @@ public class InitMember {
 
     @Component
     @RequiredArgsConstructor
-    static class InitMemberService {
+    public static class InitMemberService {
 
         private final EntityManager em;
 
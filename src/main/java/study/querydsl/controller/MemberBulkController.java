@@ -0,0 +1,58 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.dto.BulkIngestResult;
+import study.querydsl.dto.MemberIngestRow;
+import study.querydsl.repository.BulkIngestAbortedException;
+import study.querydsl.repository.MemberBulkRepository;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberBulkController {
+
+    private final MemberBulkRepository memberBulkRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${querydsl.bulk.max-chunk-size:5000}")
+    private int maxChunkSize;
+
+    /**
+     * JSON 배열 또는 NDJSON 본문을 한 건씩 읽으면서 적재한다. 본문 전체를 메모리에 올리지 않는다.
+     */
+    @PostMapping(value = "/v1/members/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BulkIngestResult ingestMembers(HttpServletRequest request,
+                                         @RequestParam(defaultValue = "${querydsl.bulk.chunk-size:1000}") int chunkSize,
+                                         @RequestParam(defaultValue = "${querydsl.bulk.chunks-per-transaction:10}") int chunksPerTransaction) throws IOException {
+        if (chunkSize < 1 || chunkSize > maxChunkSize || chunksPerTransaction < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "chunkSize must be 1.." + maxChunkSize + " and chunksPerTransaction must be positive");
+        }
+
+        try (MappingIterator<MemberIngestRow> rows = objectMapper.readerFor(MemberIngestRow.class)
+                .readValues(request.getInputStream())) {
+            return memberBulkRepository.insert(rows, chunkSize, chunksPerTransaction);
+        }
+    }
+
+    /**
+     * 본문 중간의 잘못된 행. 앞에서 커밋한 청크는 남아 있으므로 그 결과를 error 와 함께 돌려준다.
+     */
+    @ExceptionHandler(BulkIngestAbortedException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public BulkIngestResult ingestAborted(BulkIngestAbortedException e) {
+        return e.getResult();
+    }
+}
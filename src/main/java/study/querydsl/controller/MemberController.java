@@ -1,36 +1,184 @@
 package study.querydsl.controller;
 
+import com.querydsl.core.types.Predicate;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.querydsl.binding.QuerydslPredicate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.MemberTeamPage;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberDataVersion;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.repository.MemberSqlRepository;
+import study.querydsl.repository.MemberTestRepository;
+import study.querydsl.repository.SearchEngine;
 
+import javax.servlet.http.HttpServletResponse;
 import java.util.List;
+import java.util.Objects;
+
+import static org.springframework.util.StringUtils.hasText;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    /**
+     * Accept 헤더로 아래 형식을 요청하면 {@link MemberTeamPage} 컬럼형 응답을 내려준다.
+     */
+    public static final String COLUMNAR_JSON_VALUE = "application/vnd.querydsl.columnar+json";
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    /**
+     * engine=sql 이면 querydsl-sql 로 검색한다. 같은 부하에서 JPA 경로와 비교하기 위한 선택지다.
+     */
+    public static final String ENGINE_PARAM = "engine";
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberSqlRepository memberSqlRepository;
+    private final MemberTestRepository memberTestRepository;
+    private final MemberDataVersion memberDataVersion;
+
+    @Value("${querydsl.batch-search.max-conditions:50}")
+    private int maxBatchSize;
+
+    @Value("${querydsl.batch-search.max-rows-per-condition:1000}")
+    private int maxBatchRows;
 
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-        return memberJpaRepository.search(condition);
+    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition,
+                                              @RequestParam(name = ENGINE_PARAM, defaultValue = "JPA") SearchEngine engine,
+                                              WebRequest webRequest) {
+        if (webRequest.checkNotModified(memberDataVersion.etag("v1"))) {
+            return null;
+        }
+        return engine == SearchEngine.SQL ? memberSqlRepository.search(condition) : memberJpaRepository.search(condition);
+    }
+
+    /**
+     * 위젯들이 보내던 여러 검색을 한 요청으로 받는다. 응답은 요청한 조건 순서대로다.
+     * 조건마다 적어도 한 항목은 있어야 하고, 조건마다 maxBatchRows 건까지만 돌려준다.
+     */
+    @PostMapping("/v1/members/batch")
+    public List<List<MemberTeamDto>> searchMemberBatch(@RequestBody List<MemberSearchCondition> conditions) {
+        if (conditions.isEmpty() || conditions.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "conditions must be 1.." + maxBatchSize);
+        }
+        if (conditions.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "conditions must not contain null");
+        }
+        if (conditions.stream().anyMatch(MemberController::isUnconstrained)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "each condition needs username, teamName, ageGoe or ageLoe");
+        }
+        return memberSqlRepository.searchBatch(conditions, maxBatchRows);
     }
 
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageSimple(condition, pageable);
+    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable,
+                                              @RequestParam(name = ENGINE_PARAM, defaultValue = "JPA") SearchEngine engine,
+                                              WebRequest webRequest, HttpServletResponse response) {
+        varyByAccept(response);
+        if (webRequest.checkNotModified(memberDataVersion.etag("v2"))) {
+            return null;
+        }
+        return repository(engine).searchPageSimple(condition, pageable);
     }
 
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+                                              @RequestParam(name = ENGINE_PARAM, defaultValue = "JPA") SearchEngine engine,
+                                              WebRequest webRequest, HttpServletResponse response) {
+        varyByAccept(response);
+        if (webRequest.checkNotModified(memberDataVersion.etag("v3"))) {
+            return null;
+        }
+        return repository(engine).searchPageComplex(condition, pageable);
+    }
+
+    @GetMapping("/v4/members")
+    public Page<MemberTeamDto> searchMemberV4(MemberSearchCondition condition, Pageable pageable,
+                                              @RequestParam(name = ENGINE_PARAM, defaultValue = "JPA") SearchEngine engine,
+                                              WebRequest webRequest) {
+        if (webRequest.checkNotModified(memberDataVersion.etag("v4"))) {
+            return null;
+        }
+        return repository(engine).searchPageDeferred(condition, pageable);
+    }
+
+    /**
+     * username, age, team.name 으로 검색한다. 값을 여러 번 주면 IN, "abc*" 는 앞부분 일치.
+     */
+    @GetMapping("/v5/members")
+    public Page<MemberTeamDto> searchMemberV5(@QuerydslPredicate(root = Member.class, bindings = MemberRepository.class) Predicate predicate,
+                                              Pageable pageable,
+                                              WebRequest webRequest) {
+        if (webRequest.checkNotModified(memberDataVersion.etag("v5"))) {
+            return null;
+        }
+        return memberTestRepository.searchByPredicate(predicate, pageable);
+    }
+
+    @GetMapping(value = "/v2/members", produces = {COLUMNAR_JSON_VALUE, SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public MemberTeamPage searchMemberV2Compact(MemberSearchCondition condition, Pageable pageable,
+                                                @RequestParam(name = ENGINE_PARAM, defaultValue = "JPA") SearchEngine engine,
+                                                WebRequest webRequest, HttpServletResponse response) {
+        varyByAccept(response);
+        if (webRequest.checkNotModified(memberDataVersion.etag(compactVariant("v2", webRequest)))) {
+            return null;
+        }
+        return MemberTeamPage.of(repository(engine).searchPageSimple(condition, pageable));
+    }
+
+    @GetMapping(value = "/v3/members", produces = {COLUMNAR_JSON_VALUE, SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public MemberTeamPage searchMemberV3Compact(MemberSearchCondition condition, Pageable pageable,
+                                                @RequestParam(name = ENGINE_PARAM, defaultValue = "JPA") SearchEngine engine,
+                                                WebRequest webRequest, HttpServletResponse response) {
+        varyByAccept(response);
+        if (webRequest.checkNotModified(memberDataVersion.etag(compactVariant("v3", webRequest)))) {
+            return null;
+        }
+        return MemberTeamPage.of(repository(engine).searchPageComplex(condition, pageable));
+    }
+
+    private static boolean isUnconstrained(MemberSearchCondition condition) {
+        return !hasText(condition.getUsername())
+                && !hasText(condition.getTeamName())
+                && condition.getAgeGoe() == null
+                && condition.getAgeLoe() == null;
+    }
+
+    private MemberRepositoryCustom repository(SearchEngine engine) {
+        return engine == SearchEngine.SQL ? memberSqlRepository : memberRepository;
+    }
+
+    /**
+     * /v2, /v3 는 같은 URL 에서 Accept 에 따라 JSON 페이지와 컬럼형 응답을 고르므로 캐시가 Accept 별로 나눠 저장해야 한다.
+     * 304 응답에도 실리도록 조건부 요청 확인 전에 붙인다.
+     */
+    private static void varyByAccept(HttpServletResponse response) {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    }
+
+    /**
+     * 컬럼형 응답은 Accept 에 따라 JSON/Smile/CBOR 로 달라지므로 ETag 도 나눈다.
+     */
+    private static String compactVariant(String version, WebRequest webRequest) {
+        return version + "c" + Integer.toHexString(Objects.hashCode(webRequest.getHeader(HttpHeaders.ACCEPT)));
     }
 }
@@ -0,0 +1,30 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.replica.MemberReplica;
+import study.querydsl.replica.ReplicaConsistency;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "querydsl.replica.enabled", havingValue = "true")
+public class MemberReplicaController {
+
+    private final MemberReplica memberReplica;
+
+    @GetMapping("/replica/members")
+    public List<MemberTeamDto> searchMember(MemberSearchCondition condition) {
+        return memberReplica.search(condition);
+    }
+
+    @GetMapping("/replica/members/consistency")
+    public ReplicaConsistency checkConsistency(MemberSearchCondition condition) {
+        return memberReplica.checkConsistency(condition);
+    }
+}
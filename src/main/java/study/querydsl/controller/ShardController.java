@@ -0,0 +1,52 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.shard.ShardRouter;
+import study.querydsl.shard.ShardedMemberRepository;
+import study.querydsl.shard.TeamRebalancer;
+
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "querydsl.shard.enabled", havingValue = "true")
+public class ShardController {
+
+    private final ShardedMemberRepository shardedMemberRepository;
+    private final TeamRebalancer teamRebalancer;
+    private final ShardRouter shardRouter;
+
+    @GetMapping("/shard/members")
+    public Page<MemberTeamDto> searchMember(MemberSearchCondition condition, Pageable pageable) {
+        return shardedMemberRepository.searchPage(condition, pageable);
+    }
+
+    @GetMapping("/shard/placements")
+    public Map<String, Integer> placements() {
+        return shardRouter.placements();
+    }
+
+    /**
+     * 팀을 다른 샤드로 옮긴다. 옮기는 동안 그 팀에 대한 쓰기는 멈춰야 한다.
+     */
+    @PostMapping("/shard/teams/{teamName}/move")
+    public long moveTeam(@PathVariable String teamName, @RequestParam int target) {
+        int shards = shardRouter.all().size();
+        if (target < 0 || target >= shards) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "target must be 0.." + (shards - 1));
+        }
+        return teamRebalancer.moveTeam(teamName, target);
+    }
+}
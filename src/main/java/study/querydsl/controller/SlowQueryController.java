@@ -0,0 +1,35 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.config.P6spy.SlowQuery;
+import study.querydsl.config.P6spy.SlowQueryRecorder;
+
+import java.util.List;
+
+/**
+ * 느린 쿼리 목록은 바인딩된 값을 그대로 보여 주므로 querydsl.slow-query.enabled=true 일 때만 연다.
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "querydsl.slow-query.enabled", havingValue = "true")
+public class SlowQueryController {
+
+    private final SlowQueryRecorder slowQueryRecorder;
+
+    /**
+     * 최근 느린 쿼리. 오래된 것부터.
+     */
+    @GetMapping("/admin/slow-queries")
+    public List<SlowQuery> slowQueries() {
+        return slowQueryRecorder.getEntries();
+    }
+
+    @DeleteMapping("/admin/slow-queries")
+    public void clearSlowQueries() {
+        slowQueryRecorder.clear();
+    }
+}
@@ -0,0 +1,104 @@
+package study.querydsl.controller.support;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import study.querydsl.config.P6spy.StatementCounter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 검색 엔드포인트별로 {@link VegasLimiter} 를 두고, 한도를 넘는 요청은 잠깐 기다리게 한 뒤 503 으로 거절한다.
+ *
+ * 엔드포인트는 매칭된 URL 패턴으로 찾으므로 끝의 / 나 context path 가 붙어도 같은 limiter 를 쓴다.
+ * 지연 표본은 쿼리를 실제로 실행한 2xx 응답만 쓰고, 5xx 는 실패로 한도를 줄인다.
+ * 나머지(304, 4xx, 쿼리 없이 끝난 요청)는 한도를 바꾸지 않고 자리만 돌려준다.
+ */
+@Component
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+
+    public static final List<String> PATHS = List.of("/v1/members", "/v2/members", "/v3/members", "/v4/members", "/v5/members", "/v1/members/batch");
+
+    private static final String LIMITER = AdmissionControlInterceptor.class.getName() + ".LIMITER";
+    private static final String STARTED_AT = AdmissionControlInterceptor.class.getName() + ".STARTED_AT";
+    private static final String STATEMENTS = AdmissionControlInterceptor.class.getName() + ".STATEMENTS";
+
+    private final Map<String, VegasLimiter> limiters = new HashMap<>();
+    private final StatementCounter statementCounter;
+    private final long queueTimeoutMillis;
+    private final String retryAfterSeconds;
+
+    public AdmissionControlInterceptor(MeterRegistry meterRegistry,
+                                       StatementCounter statementCounter,
+                                       @Value("${querydsl.admission.initial-limit:20}") int initialLimit,
+                                       @Value("${querydsl.admission.min-limit:2}") int minLimit,
+                                       @Value("${querydsl.admission.max-limit:200}") int maxLimit,
+                                       @Value("${querydsl.admission.queue-timeout-ms:50}") long queueTimeoutMillis,
+                                       @Value("${querydsl.admission.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.statementCounter = statementCounter;
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+
+        for (String path : PATHS) {
+            VegasLimiter limiter = new VegasLimiter(initialLimit, minLimit, maxLimit);
+            limiters.put(path, limiter);
+            Gauge.builder("member.search.admission.limit", limiter, VegasLimiter::getLimit)
+                    .tag("endpoint", path)
+                    .register(meterRegistry);
+            Gauge.builder("member.search.admission.inflight", limiter, VegasLimiter::getInFlight)
+                    .tag("endpoint", path)
+                    .register(meterRegistry);
+            FunctionCounter.builder("member.search.admission.rejected", limiter, VegasLimiter::getRejected)
+                    .tag("endpoint", path)
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        VegasLimiter limiter = limiters.get((String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+        if (limiter == null) {
+            return true;
+        }
+        if (!limiter.acquire(queueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            return false;
+        }
+        request.setAttribute(LIMITER, limiter);
+        request.setAttribute(STARTED_AT, System.nanoTime());
+        request.setAttribute(STATEMENTS, statementCounter.current());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        VegasLimiter limiter = (VegasLimiter) request.getAttribute(LIMITER);
+        if (limiter == null) {
+            return;
+        }
+        request.removeAttribute(LIMITER);
+        long rtt = System.nanoTime() - (Long) request.getAttribute(STARTED_AT);
+        boolean queried = statementCounter.current() > (Long) request.getAttribute(STATEMENTS);
+        HttpStatus.Series series = HttpStatus.Series.resolve(response.getStatus());
+
+        if (ex != null || series == HttpStatus.Series.SERVER_ERROR) {
+            limiter.release(rtt, true);
+        } else if (series == HttpStatus.Series.SUCCESSFUL && queried) {
+            limiter.release(rtt, false);
+        } else {
+            limiter.release();
+        }
+    }
+}
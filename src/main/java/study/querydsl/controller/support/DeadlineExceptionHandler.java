@@ -0,0 +1,63 @@
+package study.querydsl.controller.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import study.querydsl.repository.support.CoalescingTimeoutException;
+import study.querydsl.repository.support.DeadlineExceededException;
+
+import java.util.Map;
+
+/**
+ * 시간 예산 초과는 504 와 DEADLINE_EXCEEDED 로 응답한다.
+ *
+ * query.deadline.exceeded{stage=budget} : 실행 전에 예산이 바닥남
+ * query.deadline.exceeded{stage=timeout} : 실행 중 타임아웃으로 취소됨
+ * query.deadline.exceeded{stage=coalescing} : 같은 검색의 결과를 기다리다 대기 한도를 넘김
+ */
+@RestControllerAdvice
+public class DeadlineExceptionHandler {
+
+    private static final String ERROR = "DEADLINE_EXCEEDED";
+
+    private final Counter budgetExceeded;
+    private final Counter timedOut;
+    private final Counter coalescingTimedOut;
+
+    public DeadlineExceptionHandler(MeterRegistry meterRegistry) {
+        this.budgetExceeded = Counter.builder("query.deadline.exceeded")
+                .tag("stage", "budget")
+                .register(meterRegistry);
+        this.timedOut = Counter.builder("query.deadline.exceeded")
+                .tag("stage", "timeout")
+                .register(meterRegistry);
+        this.coalescingTimedOut = Counter.builder("query.deadline.exceeded")
+                .tag("stage", "coalescing")
+                .register(meterRegistry);
+    }
+
+    @ExceptionHandler(DeadlineExceededException.class)
+    @ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+    public Map<String, String> budgetExceeded(DeadlineExceededException e) {
+        budgetExceeded.increment();
+        return Map.of("error", ERROR, "message", e.getMessage());
+    }
+
+    @ExceptionHandler(CoalescingTimeoutException.class)
+    @ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+    public Map<String, String> coalescingTimedOut(CoalescingTimeoutException e) {
+        coalescingTimedOut.increment();
+        return Map.of("error", ERROR, "message", "같은 검색의 결과를 기다리다 요청 시간 예산을 넘었습니다.");
+    }
+
+    @ExceptionHandler({QueryTimeoutException.class, javax.persistence.QueryTimeoutException.class})
+    @ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+    public Map<String, String> timedOut(RuntimeException e) {
+        timedOut.increment();
+        return Map.of("error", ERROR, "message", "쿼리가 요청 시간 예산 안에 끝나지 않았습니다.");
+    }
+}
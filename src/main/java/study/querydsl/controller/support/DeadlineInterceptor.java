@@ -0,0 +1,61 @@
+package study.querydsl.controller.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import study.querydsl.repository.support.QueryDeadline;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+
+/**
+ * 요청마다 쿼리 마감 시각을 정한다.
+ *
+ * 클라이언트가 X-Request-Timeout(밀리초)으로 예산을 주면 max-budget 안에서 그대로 쓰고, 없으면 default-budget.
+ * 이 요청에서 실행되는 JPA 쿼리는 남은 시간을 타임아웃으로 받는다. {@link QueryDeadline}
+ */
+@Component
+public class DeadlineInterceptor implements HandlerInterceptor {
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
+    private final Duration defaultBudget;
+    private final Duration maxBudget;
+    private final Duration countReserve;
+
+    public DeadlineInterceptor(@Value("${querydsl.deadline.default-budget:3s}") Duration defaultBudget,
+                               @Value("${querydsl.deadline.max-budget:30s}") Duration maxBudget,
+                               @Value("${querydsl.deadline.count-reserve:200ms}") Duration countReserve) {
+        this.defaultBudget = defaultBudget;
+        this.maxBudget = maxBudget;
+        this.countReserve = countReserve;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryDeadline.start(budget(request.getHeader(TIMEOUT_HEADER)), countReserve);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        QueryDeadline.clear();
+    }
+
+    private Duration budget(String header) {
+        if (header == null) {
+            return defaultBudget;
+        }
+        try {
+            long millis = Long.parseLong(header.trim());
+            if (millis <= 0) {
+                return defaultBudget;
+            }
+            Duration requested = Duration.ofMillis(millis);
+            return requested.compareTo(maxBudget) > 0 ? maxBudget : requested;
+        } catch (NumberFormatException e) {
+            return defaultBudget;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package study.querydsl.controller.support;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * TCP Vegas 방식의 동시 실행 수 제한.
+ *
+ * 부하가 없을 때의 최소 지연(rttNoLoad)과 현재 지연을 비교해 DB 앞에 쌓인 대기열 크기를 추정한다.
+ * queue = limit * (1 - rttNoLoad / rtt)
+ * 대기열이 작으면 limit 을 늘리고, 크거나 요청이 실패하면 줄인다.
+ * 한도를 넘는 요청은 maxWait 동안만 기다린 뒤 거절한다.
+ */
+public class VegasLimiter {
+
+    private static final int PROBE_INTERVAL = 1000;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private long rttNoLoadNanos = Long.MAX_VALUE;
+    private long samples;
+    private long rejected;
+
+    public VegasLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    public boolean acquire(long maxWait, TimeUnit unit) {
+        lock.lock();
+        try {
+            long remaining = unit.toNanos(maxWait);
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0) {
+                    rejected++;
+                    return false;
+                }
+                remaining = available.awaitNanos(remaining);
+            }
+            inFlight++;
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected++;
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param dropped 시간 초과 등으로 실패한 요청이면 지연과 상관없이 한도를 줄인다. 이때 지연은 기준 지연에 쓰지 않는다.
+     */
+    public void release(long rttNanos, boolean dropped) {
+        lock.lock();
+        try {
+            int observedInFlight = inFlight;
+            inFlight--;
+            update(rttNanos, dropped, observedInFlight);
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 지연을 표본으로 쓸 수 없는 요청(304, 4xx, 쿼리를 실행하지 않은 요청)은 한도를 건드리지 않고 자리만 돌려준다.
+     * 이런 요청까지 세면 기준 지연이 DB 왕복보다 훨씬 짧아져 모든 쿼리가 대기열로 보이게 된다.
+     */
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(long rttNanos, boolean dropped, int observedInFlight) {
+        if (!dropped) {
+            if (++samples % PROBE_INTERVAL == 0) {
+                // 기준 지연이 바뀌었을 수 있으므로 주기적으로 다시 잰다.
+                rttNoLoadNanos = rttNanos;
+            } else if (rttNanos > 0 && rttNanos < rttNoLoadNanos) {
+                rttNoLoadNanos = rttNanos;
+            }
+        }
+
+        double log = Math.max(1, Math.log10(limit));
+        double next = limit;
+        if (dropped) {
+            next = limit - log;
+        } else if (observedInFlight * 2 < limit) {
+            // 한도까지 쓰지도 않는 상황에서는 지연으로 한도를 판단할 수 없다.
+            return;
+        } else {
+            double queue = Math.ceil(limit * (1 - (double) rttNoLoadNanos / Math.max(rttNanos, 1)));
+            if (queue <= log) {
+                next = limit + 6 * log;
+            } else if (queue < 3 * log) {
+                next = limit + log;
+            } else if (queue > 6 * log) {
+                next = limit - log;
+            }
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejected() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
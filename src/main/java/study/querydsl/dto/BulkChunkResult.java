@@ -0,0 +1,15 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BulkChunkResult {
+
+    private int chunk;
+    private int received;
+    private int inserted;
+    private long elapsedMillis;
+    private String error;
+}
@@ -0,0 +1,32 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkIngestResult {
+
+    private long inserted;
+    private long failed;
+    private long elapsedMillis;
+    private List<BulkChunkResult> chunks;
+    private String error;
+
+    public BulkIngestResult(List<BulkChunkResult> chunks, long elapsedMillis) {
+        this(chunks, elapsedMillis, null);
+    }
+
+    /**
+     * @param error 입력을 끝까지 읽지 못하고 멈췄을 때의 이유. chunks 는 멈추기 전까지의 결과다.
+     */
+    public BulkIngestResult(List<BulkChunkResult> chunks, long elapsedMillis, String error) {
+        this.chunks = chunks;
+        this.error = error;
+        this.elapsedMillis = elapsedMillis;
+        for (BulkChunkResult chunk : chunks) {
+            inserted += chunk.getInserted();
+            failed += chunk.getReceived() - chunk.getInserted();
+        }
+    }
+}
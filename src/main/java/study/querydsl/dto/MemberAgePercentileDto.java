@@ -0,0 +1,28 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+/**
+ * 팀 안에서 나이 백분위(percent_rank, 0.0 ~ 1.0)와 팀 평균 나이.
+ */
+@Data
+public class MemberAgePercentileDto {
+
+    private Long memberId;
+    private String username;
+    private int age;
+    private String teamName;
+    private double percentRank;
+    private double teamAverageAge;
+
+    @QueryProjection
+    public MemberAgePercentileDto(Long memberId, String username, int age, String teamName, double percentRank, double teamAverageAge) {
+        this.memberId = memberId;
+        this.username = username;
+        this.age = age;
+        this.teamName = teamName;
+        this.percentRank = percentRank;
+        this.teamAverageAge = teamAverageAge;
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+/**
+ * 팀 안에서 나이 순위. 나이가 같으면 memberId 가 작은 쪽이 앞선다.
+ */
+@Data
+public class MemberAgeRankDto {
+
+    private Long memberId;
+    private String username;
+    private int age;
+    private Long teamId;
+    private String teamName;
+    private long rank;
+
+    @QueryProjection
+    public MemberAgeRankDto(Long memberId, String username, int age, Long teamId, String teamName, long rank) {
+        this.memberId = memberId;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.rank = rank;
+    }
+}
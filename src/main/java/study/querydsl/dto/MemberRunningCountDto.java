@@ -0,0 +1,28 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+/**
+ * 팀 안에서 나이 순으로 센 누적 인원(runningCount)과 팀 전체 인원(teamCount).
+ */
+@Data
+public class MemberRunningCountDto {
+
+    private Long memberId;
+    private String username;
+    private int age;
+    private String teamName;
+    private long runningCount;
+    private long teamCount;
+
+    @QueryProjection
+    public MemberRunningCountDto(Long memberId, String username, int age, String teamName, long runningCount, long teamCount) {
+        this.memberId = memberId;
+        this.username = username;
+        this.age = age;
+        this.teamName = teamName;
+        this.runningCount = runningCount;
+        this.teamCount = teamCount;
+    }
+}
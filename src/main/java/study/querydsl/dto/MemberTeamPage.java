@@ -0,0 +1,95 @@
+package study.querydsl.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import lombok.Getter;
+import org.springframework.data.domain.Page;
+import study.querydsl.repository.support.EstimatedPage;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 컬럼 이름은 한 번만, 값은 행마다 배열로 내려주는 가벼운 페이지 응답.
+ * Page 의 pageable/sort 구조는 내려주지 않는다.
+ *
+ * {"columns":["memberId",...],"rows":[[1,"member1",10,1,"teamA"],...],"page":0,"size":15,"totalElements":100,"totalPages":7,"totalEstimated":false}
+ * totalEstimated 가 true 면 totalElements 는 count 를 건너뛰고 잡은 하한이다.
+ */
+@Getter
+@JsonSerialize(using = MemberTeamPage.ColumnarSerializer.class)
+public class MemberTeamPage {
+
+    private static final String[] COLUMNS = {"memberId", "username", "age", "teamId", "teamName"};
+
+    private final List<MemberTeamDto> content;
+    private final int page;
+    private final int size;
+    private final long totalElements;
+    private final int totalPages;
+    private final boolean totalEstimated;
+
+    private MemberTeamPage(Page<MemberTeamDto> page) {
+        this.content = page.getContent();
+        this.page = page.getNumber();
+        this.size = page.getSize();
+        this.totalElements = page.getTotalElements();
+        this.totalPages = page.getTotalPages();
+        this.totalEstimated = page instanceof EstimatedPage;
+    }
+
+    public static MemberTeamPage of(Page<MemberTeamDto> page) {
+        return new MemberTeamPage(page);
+    }
+
+    /**
+     * 행마다 중간 배열/Map 을 만들지 않고 generator 에 바로 쓴다.
+     * generator 버퍼는 Jackson 의 BufferRecycler 가 스레드별로 재사용한다.
+     */
+    static class ColumnarSerializer extends StdSerializer<MemberTeamPage> {
+
+        ColumnarSerializer() {
+            super(MemberTeamPage.class);
+        }
+
+        @Override
+        public void serialize(MemberTeamPage value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+
+            gen.writeArrayFieldStart("columns");
+            for (String column : COLUMNS) {
+                gen.writeString(column);
+            }
+            gen.writeEndArray();
+
+            gen.writeArrayFieldStart("rows");
+            for (MemberTeamDto row : value.content) {
+                gen.writeStartArray();
+                writeNumber(gen, row.getMemberId());
+                gen.writeString(row.getUsername());
+                gen.writeNumber(row.getAge());
+                writeNumber(gen, row.getTeamId());
+                gen.writeString(row.getTeamName());
+                gen.writeEndArray();
+            }
+            gen.writeEndArray();
+
+            gen.writeNumberField("page", value.page);
+            gen.writeNumberField("size", value.size);
+            gen.writeNumberField("totalElements", value.totalElements);
+            gen.writeNumberField("totalPages", value.totalPages);
+            gen.writeBooleanField("totalEstimated", value.totalEstimated);
+            gen.writeEndObject();
+        }
+
+        private static void writeNumber(JsonGenerator gen, Long number) throws IOException {
+            if (number == null) {
+                gen.writeNull();
+            } else {
+                gen.writeNumber(number);
+            }
+        }
+    }
+}
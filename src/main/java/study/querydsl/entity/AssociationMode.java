@@ -0,0 +1,18 @@
+package study.querydsl.entity;
+
+/**
+ * 회원을 팀에 넣을 때 양방향 컬렉션(Team.members)을 어떻게 다룰지.
+ */
+public enum AssociationMode {
+
+    /**
+     * 항상 Team.members 에도 추가한다. 팀 프록시와 컬렉션이 초기화될 수 있다.
+     */
+    BIDIRECTIONAL,
+
+    /**
+     * 팀과 Team.members 가 이미 로딩된 경우에만 추가한다. 추가 SELECT 가 일어나지 않는다.
+     * 로딩되지 않은 컬렉션은 나중에 DB 에서 읽을 때 새 회원이 포함된다(flush 이후).
+     */
+    LAZY_SAFE
+}
@@ -0,0 +1,28 @@
+package study.querydsl.entity;
+
+import lombok.RequiredArgsConstructor;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Member, Team 변경을 {@link EntityChangePublisher} 로 전달하는 JPA 엔티티 리스너.
+ * 스프링 부트가 등록한 SpringBeanContainer 를 통해 생성되므로 생성자 주입이 가능하다.
+ */
+@RequiredArgsConstructor
+public class EntityChangeListener {
+
+    private final EntityChangePublisher changePublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        if (entity instanceof Member) {
+            changePublisher.changed(Member.class, ((Member) entity).getId());
+        } else if (entity instanceof Team) {
+            changePublisher.changed(Team.class, ((Team) entity).getId());
+        }
+    }
+}
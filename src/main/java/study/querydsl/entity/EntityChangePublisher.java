@@ -0,0 +1,68 @@
+package study.querydsl.entity;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 엔티티 변경을 트랜잭션 단위로 모아서 커밋 후 한 번만 {@link EntityChangedEvent} 로 발행한다.
+ * 롤백된 변경은 발행하지 않는다. 트랜잭션 밖에서의 변경은 즉시 발행한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityChangePublisher {
+
+    private static final Object RESOURCE_KEY = EntityChangePublisher.class.getName() + ".PENDING";
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public void changed(Class<?> type, Long id) {
+        if (id == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            EntityChangedEvent.Builder builder = new EntityChangedEvent.Builder();
+            builder.add(type, id);
+            eventPublisher.publishEvent(builder.build());
+            return;
+        }
+        pending().add(type, id);
+    }
+
+    /**
+     * JPQL bulk 연산처럼 엔티티 리스너를 거치지 않는 변경은 직접 알려야 한다.
+     */
+    public void bulkChanged(Class<?> type) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            EntityChangedEvent.Builder builder = new EntityChangedEvent.Builder();
+            builder.addBulk(type);
+            eventPublisher.publishEvent(builder.build());
+            return;
+        }
+        pending().addBulk(type);
+    }
+
+    private EntityChangedEvent.Builder pending() {
+        EntityChangedEvent.Builder pending = (EntityChangedEvent.Builder) TransactionSynchronizationManager.getResource(RESOURCE_KEY);
+        if (pending != null) {
+            return pending;
+        }
+
+        EntityChangedEvent.Builder created = new EntityChangedEvent.Builder();
+        TransactionSynchronizationManager.bindResource(RESOURCE_KEY, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eventPublisher.publishEvent(created.build());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(RESOURCE_KEY);
+            }
+        });
+        return created;
+    }
+}
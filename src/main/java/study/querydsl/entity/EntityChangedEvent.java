@@ -0,0 +1,52 @@
+package study.querydsl.entity;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 커밋된 트랜잭션 하나에서 변경된 엔티티 id 모음.
+ * bulk 변경(JPQL update/delete)은 id 를 알 수 없으므로 타입 단위로만 표시한다.
+ */
+public class EntityChangedEvent {
+
+    private final Map<Class<?>, Set<Long>> ids;
+    private final Set<Class<?>> bulk;
+
+    EntityChangedEvent(Map<Class<?>, Set<Long>> ids, Set<Class<?>> bulk) {
+        this.ids = ids;
+        this.bulk = bulk;
+    }
+
+    public boolean isChanged(Class<?> type) {
+        return ids.containsKey(type) || bulk.contains(type);
+    }
+
+    public boolean isBulk(Class<?> type) {
+        return bulk.contains(type);
+    }
+
+    public Set<Long> getIds(Class<?> type) {
+        return ids.getOrDefault(type, Collections.emptySet());
+    }
+
+    static class Builder {
+
+        private final Map<Class<?>, Set<Long>> ids = new HashMap<>();
+        private final Set<Class<?>> bulk = new HashSet<>();
+
+        synchronized void add(Class<?> type, Long id) {
+            ids.computeIfAbsent(type, k -> new HashSet<>()).add(id);
+        }
+
+        synchronized void addBulk(Class<?> type) {
+            bulk.add(type);
+        }
+
+        synchronized EntityChangedEvent build() {
+            return new EntityChangedEvent(ids, bulk);
+        }
+    }
+}
@@ -1,17 +1,32 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
-import java.util.Objects;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "member_username_idx", columnList = "username, member_id"),
+        @Index(name = "member_age_idx", columnList = "age, member_id")
+})
+@NamedEntityGraph(name = "Member.withTeam", attributeNodes = @NamedAttributeNode("team"))
+@NamedEntityGraph(name = "Member.withTeamAndRoster",
+        attributeNodes = @NamedAttributeNode(value = "team", subgraph = "roster"),
+        subgraphs = @NamedSubgraph(name = "roster", attributeNodes = @NamedAttributeNode("members")))
+@EntityListeners(EntityChangeListener.class)
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
 public class Member {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "member_seq")
+    @GenericGenerator(name = "member_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "member_seq"))
     @Column(name = "member_id")
     private Long id;
     private String username;
@@ -30,28 +45,47 @@ public class Member {
     }
 
     public Member(String username, int age, Team team) {
+        this(username, age, team, AssociationMode.BIDIRECTIONAL);
+    }
+
+    public Member(String username, int age, Team team, AssociationMode mode) {
         this.username = username;
         this.age = age;
         if (team != null) {
-            changeTeam(team);
+            changeTeam(team, mode);
         }
     }
 
     public void changeTeam(Team team) {
+        changeTeam(team, AssociationMode.BIDIRECTIONAL);
+    }
+
+    /**
+     * 프록시의 메서드를 호출하면 프록시가 초기화되므로, 로딩 여부는 팀 밖에서 확인한다.
+     * 빌드 시 enhance 해도 association management 는 켜지 않으므로 반대편 컬렉션은 여기서만 맞춘다.
+     */
+    public void changeTeam(Team team, AssociationMode mode) {
         this.team = team;
-        team.getMembers().add(this);
+        if (mode == AssociationMode.BIDIRECTIONAL
+                || Hibernate.isInitialized(team) && Hibernate.isInitialized(team.getMembers())) {
+            team.getMembers().add(this);
+        }
     }
 
+    /**
+     * id 로만 비교한다. 연관관계를 보지 않으므로 equals/hashCode 가 프록시를 초기화하지 않는다.
+     * 저장 전(id 없음)에는 같은 인스턴스만 같다. hashCode 는 저장 전후로 바뀌지 않도록 고정값을 쓴다.
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof Member)) return false;
         Member member = (Member) o;
-        return getAge() == member.getAge() && Objects.equals(getId(), member.getId()) && Objects.equals(getUsername(), member.getUsername()) && Objects.equals(getTeam(), member.getTeam());
+        return id != null && id.equals(member.getId());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getId(), getUsername(), getAge(), getTeam());
+        return Member.class.hashCode();
     }
 }
@@ -4,18 +4,32 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * 팀 프록시는 한 번에 최대 100개까지 같이 초기화한다. (@BatchSize)
+ * 회원 목록을 돌며 member.getTeam().getName() 을 불러도 팀마다 쿼리가 나가지 않고 team_id in (...) 한 번으로 읽는다.
+ */
 @Entity
+@Table(indexes = @Index(name = "team_name_idx", columnList = "name"))
+@BatchSize(size = 100)
+@EntityListeners(EntityChangeListener.class)
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
 public class Team {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "team_seq")
+    @GenericGenerator(name = "team_seq", strategy = PooledSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "team_seq"))
     @Column(name = "team_id")
     private Long id;
     private String name;
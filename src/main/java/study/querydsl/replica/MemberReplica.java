@@ -0,0 +1,220 @@
+package study.querydsl.replica;
+
+import com.querydsl.collections.CollQueryFactory;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.EntityChangedEvent;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * Member, Team 의 힙 내 복제본.
+ *
+ * 커밋된 엔티티 변경 이벤트로 바뀐 회원만 주기적으로 다시 읽고,
+ * 이벤트로 잡히지 않는 변경(bulk 연산 등)을 위해 일정 주기마다 전체를 다시 읽는다.
+ * 마지막 갱신 이후 max-staleness 가 지나면 복제본을 쓰지 않고 DB 로 조회한다.
+ */
+@Lazy(false)
+@Component
+@ConditionalOnProperty(name = "querydsl.replica.enabled", havingValue = "true")
+public class MemberReplica {
+
+    private static final int LOAD_CHUNK_SIZE = 1000;
+
+    private final EntityManager em;
+    private final TransactionTemplate readTransaction;
+    private final MemberRepository memberRepository;
+    private final Duration maxStaleness;
+
+    private final Set<Long> dirtyMemberIds = ConcurrentHashMap.newKeySet();
+    private final Set<Long> dirtyTeamIds = ConcurrentHashMap.newKeySet();
+    private volatile boolean fullResyncRequested = true;
+
+    private volatile Map<Long, Member> members = Collections.emptyMap();
+    private volatile long refreshedAt;
+
+    public MemberReplica(EntityManager em,
+                         PlatformTransactionManager transactionManager,
+                         MemberRepository memberRepository,
+                         @Value("${querydsl.replica.max-staleness:5s}") Duration maxStaleness) {
+        this.em = em;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.memberRepository = memberRepository;
+        this.maxStaleness = maxStaleness;
+    }
+
+    /**
+     * 복제본이 최신이면 복제본에서, 아니면 DB 에서 조회한다.
+     */
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return searchReplica(condition)
+                .orElseGet(() -> memberRepository.search(condition));
+    }
+
+    /**
+     * 복제본이 max-staleness 안에 갱신되지 않았으면 비어있다.
+     */
+    public Optional<List<MemberTeamDto>> searchReplica(MemberSearchCondition condition) {
+        if (!isFresh()) {
+            return Optional.empty();
+        }
+        return Optional.of(query(condition));
+    }
+
+    public boolean isFresh() {
+        return refreshedAt != 0 && System.currentTimeMillis() - refreshedAt <= maxStaleness.toMillis();
+    }
+
+    /**
+     * 같은 조건으로 복제본과 DB 를 모두 조회해서 비교한다.
+     */
+    public ReplicaConsistency checkConsistency(MemberSearchCondition condition) {
+        List<MemberTeamDto> fromReplica = query(condition);
+        List<MemberTeamDto> fromDatabase = readTransaction.execute(status -> memberRepository.search(condition));
+        return ReplicaConsistency.compare(fromReplica, fromDatabase, refreshedAt);
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.isBulk(Member.class) || event.isBulk(Team.class)) {
+            fullResyncRequested = true;
+        }
+        dirtyMemberIds.addAll(event.getIds(Member.class));
+        dirtyTeamIds.addAll(event.getIds(Team.class));
+    }
+
+    @Scheduled(fixedDelayString = "${querydsl.replica.refresh-interval:1000}")
+    public void refresh() {
+        refresh(false);
+    }
+
+    @Scheduled(fixedDelayString = "${querydsl.replica.full-resync-interval:300000}",
+            initialDelayString = "${querydsl.replica.full-resync-interval:300000}")
+    public void fullResync() {
+        refresh(true);
+    }
+
+    private synchronized void refresh(boolean full) {
+        long startedAt = System.currentTimeMillis();
+
+        if (full || fullResyncRequested) {
+            fullResyncRequested = false;
+            dirtyMemberIds.clear();
+            dirtyTeamIds.clear();
+            members = readTransaction.execute(status -> loadAll());
+            refreshedAt = startedAt;
+            return;
+        }
+
+        Set<Long> memberIds = drain(dirtyMemberIds);
+        Set<Long> teamIds = drain(dirtyTeamIds);
+        if (!teamIds.isEmpty()) {
+            members.values().stream()
+                    .filter(m -> m.getTeam() != null && teamIds.contains(m.getTeam().getId()))
+                    .forEach(m -> memberIds.add(m.getId()));
+        }
+
+        if (!memberIds.isEmpty()) {
+            Map<Long, Member> next = new HashMap<>(members);
+            List<Member> loaded = readTransaction.execute(status -> loadByIds(memberIds));
+            memberIds.forEach(next::remove);
+            loaded.forEach(m -> next.put(m.getId(), m));
+            members = next;
+        }
+        refreshedAt = startedAt;
+    }
+
+    private List<MemberTeamDto> query(MemberSearchCondition condition) {
+        return CollQueryFactory.from(member, members.values())
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .orderBy(member.id.asc())
+                .fetch()
+                .stream()
+                .map(MemberReplica::toDto)
+                .collect(Collectors.toList());
+    }
+
+    private Map<Long, Member> loadAll() {
+        return em.createQuery("select m from Member m left join fetch m.team", Member.class)
+                .getResultList()
+                .stream()
+                .collect(Collectors.toMap(Member::getId, m -> m));
+    }
+
+    private List<Member> loadByIds(Set<Long> ids) {
+        List<Long> idList = new ArrayList<>(ids);
+        List<Member> loaded = new ArrayList<>();
+        for (int from = 0; from < idList.size(); from += LOAD_CHUNK_SIZE) {
+            List<Long> chunk = idList.subList(from, Math.min(from + LOAD_CHUNK_SIZE, idList.size()));
+            loaded.addAll(em.createQuery("select m from Member m left join fetch m.team where m.id in :ids", Member.class)
+                    .setParameter("ids", chunk)
+                    .getResultList());
+        }
+        return loaded;
+    }
+
+    private static Set<Long> drain(Set<Long> dirty) {
+        Set<Long> drained = new HashSet<>(dirty);
+        dirty.removeAll(drained);
+        return drained;
+    }
+
+    private static MemberTeamDto toDto(Member m) {
+        Team t = m.getTeam();
+        return new MemberTeamDto(m.getId(), m.getUsername(), m.getAge(),
+                t != null ? t.getId() : null,
+                t != null ? t.getName() : null);
+    }
+
+    /**
+     * DB 쿼리와 같은 조건이지만, 팀이 없는 회원에서 NPE 가 나지 않도록 team 을 member.team 경로로 따라간다.
+     */
+    private BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? member.team.isNotNull().and(member.team.name.eq(teamName)) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
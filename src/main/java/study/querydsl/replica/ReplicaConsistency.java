@@ -0,0 +1,59 @@
+package study.querydsl.replica;
+
+import lombok.Getter;
+import lombok.ToString;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 복제본과 DB 조회 결과 비교.
+ */
+@Getter
+@ToString
+public class ReplicaConsistency {
+
+    private final long replicaRefreshedAt;
+    private final int replicaCount;
+    private final int databaseCount;
+    private final List<Long> missingInReplica = new ArrayList<>();
+    private final List<Long> unexpectedInReplica = new ArrayList<>();
+    private final List<Long> different = new ArrayList<>();
+
+    private ReplicaConsistency(long replicaRefreshedAt, int replicaCount, int databaseCount) {
+        this.replicaRefreshedAt = replicaRefreshedAt;
+        this.replicaCount = replicaCount;
+        this.databaseCount = databaseCount;
+    }
+
+    public boolean isConsistent() {
+        return missingInReplica.isEmpty() && unexpectedInReplica.isEmpty() && different.isEmpty();
+    }
+
+    static ReplicaConsistency compare(List<MemberTeamDto> fromReplica, List<MemberTeamDto> fromDatabase, long replicaRefreshedAt) {
+        ReplicaConsistency result = new ReplicaConsistency(replicaRefreshedAt, fromReplica.size(), fromDatabase.size());
+
+        Map<Long, MemberTeamDto> replicaById = fromReplica.stream()
+                .collect(Collectors.toMap(MemberTeamDto::getMemberId, Function.identity()));
+        Map<Long, MemberTeamDto> databaseById = fromDatabase.stream()
+                .collect(Collectors.toMap(MemberTeamDto::getMemberId, Function.identity()));
+
+        databaseById.forEach((id, row) -> {
+            MemberTeamDto replicaRow = replicaById.get(id);
+            if (replicaRow == null) {
+                result.missingInReplica.add(id);
+            } else if (!Objects.equals(replicaRow, row)) {
+                result.different.add(id);
+            }
+        });
+        replicaById.keySet().stream()
+                .filter(id -> !databaseById.containsKey(id))
+                .forEach(result.unexpectedInReplica::add);
+        return result;
+    }
+}
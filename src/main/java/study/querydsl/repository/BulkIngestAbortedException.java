@@ -0,0 +1,21 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import study.querydsl.dto.BulkIngestResult;
+
+/**
+ * 적재 중에 입력을 더 읽을 수 없게 됨. (본문 중간의 잘못된 행 등)
+ *
+ * 그 전에 커밋한 청크는 되돌리지 않으므로 지금까지의 결과를 함께 넘긴다.
+ * 읽다 만 트랜잭션의 행은 적재하지 않는다.
+ */
+@Getter
+public class BulkIngestAbortedException extends RuntimeException {
+
+    private final BulkIngestResult result;
+
+    public BulkIngestAbortedException(BulkIngestResult result, Throwable cause) {
+        super(result.getError(), cause);
+        this.result = result;
+    }
+}
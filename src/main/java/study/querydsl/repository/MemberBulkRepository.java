@@ -0,0 +1,106 @@
+package study.querydsl.repository;
+
+import org.hibernate.Session;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.BulkChunkResult;
+import study.querydsl.dto.BulkIngestResult;
+import study.querydsl.dto.MemberIngestRow;
+import study.querydsl.entity.AssociationMode;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 대량 회원 적재.
+ *
+ * chunkSize 건마다 flush/clear 해서 영속성 컨텍스트가 커지지 않게 하고,
+ * chunksPerTransaction 개의 청크를 한 트랜잭션으로 커밋한다.
+ * 트랜잭션이 실패하면 그 트랜잭션에 속한 청크만 실패로 기록하고 다음 청크를 계속 적재한다.
+ * 입력을 읽다 실패하면 더 읽을 수 없으므로 {@link BulkIngestAbortedException} 에 지금까지의 결과를 담아 멈춘다.
+ */
+@Repository
+public class MemberBulkRepository {
+
+    private final EntityManager em;
+    private final TeamIdCache teamIdCache;
+    private final TransactionTemplate transactionTemplate;
+
+    public MemberBulkRepository(EntityManager em, TeamIdCache teamIdCache, PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.teamIdCache = teamIdCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public BulkIngestResult insert(Iterator<MemberIngestRow> rows, int chunkSize, int chunksPerTransaction) {
+        long start = System.currentTimeMillis();
+        List<BulkChunkResult> results = new ArrayList<>();
+
+        while (true) {
+            List<List<MemberIngestRow>> chunks;
+            try {
+                chunks = nextChunks(rows, chunkSize, chunksPerTransaction);
+            } catch (RuntimeException e) {
+                throw new BulkIngestAbortedException(
+                        new BulkIngestResult(results, System.currentTimeMillis() - start, e.getMessage()), e);
+            }
+            if (chunks.isEmpty()) {
+                break;
+            }
+            results.addAll(insertInTransaction(chunks, results.size(), chunkSize));
+        }
+
+        return new BulkIngestResult(results, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 한 트랜잭션에 넣을 청크들을 읽는다. 입력이 끝났으면 빈 목록.
+     */
+    private static List<List<MemberIngestRow>> nextChunks(Iterator<MemberIngestRow> rows, int chunkSize, int chunksPerTransaction) {
+        List<List<MemberIngestRow>> chunks = new ArrayList<>(chunksPerTransaction);
+        while (rows.hasNext() && chunks.size() < chunksPerTransaction) {
+            List<MemberIngestRow> chunk = new ArrayList<>(chunkSize);
+            while (rows.hasNext() && chunk.size() < chunkSize) {
+                chunk.add(rows.next());
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private List<BulkChunkResult> insertInTransaction(List<List<MemberIngestRow>> chunks, int firstChunk, int chunkSize) {
+        List<BulkChunkResult> results = new ArrayList<>(chunks.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                em.unwrap(Session.class).setJdbcBatchSize(chunkSize);
+                for (List<MemberIngestRow> chunk : chunks) {
+                    long chunkStart = System.currentTimeMillis();
+                    for (MemberIngestRow row : chunk) {
+                        em.persist(new Member(row.getUsername(), row.getAge(), teamReference(row.getTeamName()), AssociationMode.LAZY_SAFE));
+                    }
+                    em.flush();
+                    em.clear();
+                    results.add(new BulkChunkResult(firstChunk + results.size(), chunk.size(), chunk.size(),
+                            System.currentTimeMillis() - chunkStart, null));
+                }
+            });
+            return results;
+        } catch (RuntimeException e) {
+            List<BulkChunkResult> failed = new ArrayList<>(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                failed.add(new BulkChunkResult(firstChunk + i, chunks.get(i).size(), 0, 0, e.getMessage()));
+            }
+            return failed;
+        }
+    }
+
+    private Team teamReference(String teamName) {
+        Long teamId = teamIdCache.resolve(teamName);
+        return teamId != null ? em.getReference(Team.class, teamId) : null;
+    }
+}
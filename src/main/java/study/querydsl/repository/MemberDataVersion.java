@@ -0,0 +1,42 @@
+package study.querydsl.repository;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.EntityChangedEvent;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Member, Team 데이터 버전.
+ *
+ * 커밋된 엔티티 변경 이벤트마다 올라간다. JPQL bulk 연산은 엔티티 리스너를 거치지 않으므로
+ * 빈으로 등록된 JPAQueryFactory 의 update, delete 를 쓰거나
+ * {@link study.querydsl.entity.EntityChangePublisher#bulkChanged(Class)} 로 직접 알려야 한다.
+ * 버전은 메모리에만 있으므로 재시작 후 같은 값이 재사용되지 않도록 기동 시각을 함께 쓴다.
+ */
+@Component
+public class MemberDataVersion {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong memberVersion = new AtomicLong();
+    private final AtomicLong teamVersion = new AtomicLong();
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.isChanged(Member.class)) {
+            memberVersion.incrementAndGet();
+        }
+        if (event.isChanged(Team.class)) {
+            teamVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * 같은 URL 이라도 표현(variant)이 다르면 ETag 가 달라야 한다.
+     */
+    public String etag(String variant) {
+        return "\"" + variant + "-" + epoch + "-" + memberVersion.get() + "-" + teamVersion.get() + "\"";
+    }
+}
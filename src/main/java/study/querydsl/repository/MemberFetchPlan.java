@@ -0,0 +1,42 @@
+package study.querydsl.repository;
+
+import study.querydsl.repository.support.FetchPlan;
+
+/**
+ * Member 조회 시 함께 읽을 범위. graph 는 Member 의 @NamedEntityGraph 에 있다.
+ */
+public enum MemberFetchPlan implements FetchPlan {
+
+    /**
+     * 회원만. team 은 프록시로 남는다.
+     */
+    MEMBER_ONLY(null, false),
+
+    /**
+     * 회원과 팀.
+     */
+    WITH_TEAM("Member.withTeam", false),
+
+    /**
+     * 회원, 팀, 팀의 회원 목록.
+     */
+    WITH_TEAM_AND_ROSTER("Member.withTeamAndRoster", true);
+
+    private final String graphName;
+    private final boolean fetchesCollection;
+
+    MemberFetchPlan(String graphName, boolean fetchesCollection) {
+        this.graphName = graphName;
+        this.fetchesCollection = fetchesCollection;
+    }
+
+    @Override
+    public String graphName() {
+        return graphName;
+    }
+
+    @Override
+    public boolean fetchesCollection() {
+        return fetchesCollection;
+    }
+}
@@ -0,0 +1,156 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.SQLExpressions;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberAgePercentileDto;
+import study.querydsl.dto.MemberAgeRankDto;
+import study.querydsl.dto.MemberRunningCountDto;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberAgePercentileDto;
+import study.querydsl.dto.QMemberAgeRankDto;
+import study.querydsl.dto.QMemberRunningCountDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * 팀별 순위/백분위/누적 인원. 윈도우 함수를 써서 테이블을 한 번만 읽는다.
+ *
+ * 팀별 최고령, 팀 평균 이상 같은 조회를 JPQL 로 하면 행마다 상관 서브쿼리가 돈다.
+ * 윈도우 함수 결과로 거르려면 한 번 감싸야 하므로(where 절에서 쓸 수 없다) 인라인 뷰를 쓴다.
+ * teamName 이 있으면 그 팀만 본다. 팀 단위로 나누므로 결과 값은 달라지지 않는다.
+ */
+@Repository
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class MemberRankingRepository {
+
+    private static final PathBuilder<Object> ranked = new PathBuilder<>(Object.class, "ranked");
+    private static final NumberPath<Long> rankedMemberId = ranked.getNumber("member_id", Long.class);
+    private static final StringPath rankedUsername = ranked.getString("username");
+    private static final NumberPath<Integer> rankedAge = ranked.getNumber("age", Integer.class);
+    private static final NumberPath<Long> rankedTeamId = ranked.getNumber("team_id", Long.class);
+    private static final StringPath rankedTeamName = ranked.getString("team_name");
+    private static final NumberPath<Long> rankedRank = ranked.getNumber("age_rank", Long.class);
+    private static final NumberPath<Double> rankedTeamAverage = ranked.getNumber("team_avg_age", Double.class);
+
+    private final SQLQueryFactory queryFactory;
+
+    /**
+     * 팀마다 나이가 많은 순으로 n 명. (subQueryEq 의 최고령 조회를 팀별, 상위 n 명으로 일반화)
+     */
+    public List<MemberAgeRankDto> findTopByAgePerTeam(int n, String teamName) {
+        SQLQuery<?> inner = SQLExpressions
+                .select(
+                        member.memberId.as("member_id"),
+                        member.username.as("username"),
+                        member.age.as("age"),
+                        team.teamId.as("team_id"),
+                        team.name.as("team_name"),
+                        SQLExpressions.rowNumber().over()
+                                .partitionBy(member.teamId)
+                                .orderBy(member.age.desc(), member.memberId.asc())
+                                .as("age_rank")
+                )
+                .from(member)
+                .join(team).on(member.teamId.eq(team.teamId))
+                .where(teamNameEq(teamName));
+
+        return queryFactory
+                .select(new QMemberAgeRankDto(rankedMemberId, rankedUsername, rankedAge, rankedTeamId, rankedTeamName, rankedRank))
+                .from(inner, ranked)
+                .where(rankedRank.loe((long) n))
+                .orderBy(rankedTeamName.asc(), rankedRank.asc())
+                .fetch();
+    }
+
+    /**
+     * 팀 평균 나이 이상인 회원. (subQueryGoe 를 팀별로)
+     */
+    public List<MemberTeamDto> findAtOrAboveTeamAverage(String teamName) {
+        SQLQuery<?> inner = SQLExpressions
+                .select(
+                        member.memberId.as("member_id"),
+                        member.username.as("username"),
+                        member.age.as("age"),
+                        team.teamId.as("team_id"),
+                        team.name.as("team_name"),
+                        SQLExpressions.avg(member.age.castToNum(Double.class)).over()
+                                .partitionBy(member.teamId)
+                                .as("team_avg_age")
+                )
+                .from(member)
+                .join(team).on(member.teamId.eq(team.teamId))
+                .where(teamNameEq(teamName));
+
+        return queryFactory
+                .select(new QMemberTeamDto(rankedMemberId, rankedUsername, rankedAge, rankedTeamId, rankedTeamName))
+                .from(inner, ranked)
+                .where(rankedAge.castToNum(Double.class).goe(rankedTeamAverage))
+                .orderBy(rankedTeamName.asc(), rankedAge.desc(), rankedMemberId.asc())
+                .fetch();
+    }
+
+    /**
+     * 팀 안에서 나이 백분위와 팀 평균. 거를 조건이 없으므로 감싸지 않는다.
+     */
+    public List<MemberAgePercentileDto> findAgePercentiles(String teamName) {
+        return queryFactory
+                .select(new QMemberAgePercentileDto(
+                        member.memberId,
+                        member.username,
+                        member.age,
+                        team.name,
+                        SQLExpressions.percentRank().over()
+                                .partitionBy(member.teamId)
+                                .orderBy(member.age.asc()),
+                        SQLExpressions.avg(member.age.castToNum(Double.class)).over()
+                                .partitionBy(member.teamId)
+                ))
+                .from(member)
+                .join(team).on(member.teamId.eq(team.teamId))
+                .where(teamNameEq(teamName))
+                .orderBy(team.name.asc(), member.age.asc(), member.memberId.asc())
+                .fetch();
+    }
+
+    /**
+     * 팀 안에서 나이 순으로 누적 인원. 같은 나이도 한 명씩 세도록 memberId 까지 정렬하고 ROWS 프레임을 쓴다.
+     */
+    public List<MemberRunningCountDto> findRunningCounts(String teamName) {
+        return queryFactory
+                .select(new QMemberRunningCountDto(
+                        member.memberId,
+                        member.username,
+                        member.age,
+                        team.name,
+                        SQLExpressions.count(member.memberId).over()
+                                .partitionBy(member.teamId)
+                                .orderBy(member.age.asc(), member.memberId.asc())
+                                .rows().between().unboundedPreceding().currentRow(),
+                        SQLExpressions.count(member.memberId).over()
+                                .partitionBy(member.teamId)
+                ))
+                .from(member)
+                .join(team).on(member.teamId.eq(team.teamId))
+                .where(teamNameEq(teamName))
+                .orderBy(team.name.asc(), member.age.asc(), member.memberId.asc())
+                .fetch();
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+}
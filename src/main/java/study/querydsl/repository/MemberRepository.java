@@ -3,11 +3,32 @@ package study.querydsl.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
+import org.springframework.data.querydsl.binding.QuerydslBinderCustomizer;
+import org.springframework.data.querydsl.binding.QuerydslBindings;
 import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.repository.support.PredicateGuard;
 
 import java.util.List;
 
-public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom, QuerydslPredicateExecutor<Member> {
+public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom, QuerydslPredicateExecutor<Member>,
+        QuerydslBinderCustomizer<QMember> {
 
     List<Member> findByUsername(String username);
+
+    /**
+     * @QuerydslPredicate 로 받는 검색 조건. 인덱스가 있는 경로만 열어 둔다.
+     *
+     * username  : member_username_idx
+     * age       : member_age_idx
+     * team.name : team_name_idx
+     */
+    @Override
+    default void customize(QuerydslBindings bindings, QMember root) {
+        bindings.excludeUnlistedProperties(true);
+        bindings.including(root.username, root.age, root.team.name);
+        bindings.bind(root.username).all(PredicateGuard::prefixOrIn);
+        bindings.bind(root.team.name).all(PredicateGuard::prefixOrIn);
+        bindings.bind(root.age).all(PredicateGuard::in);
+    }
 }
@@ -11,4 +11,9 @@ public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+
+    /**
+     * id 만으로 페이지를 먼저 정한 뒤 그 id 의 행만 조인해서 읽는다. 깊은 offset 에 유리하다.
+     */
+    Page<MemberTeamDto> searchPageDeferred(MemberSearchCondition condition, Pageable pageable);
 }
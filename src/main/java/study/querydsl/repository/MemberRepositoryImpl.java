@@ -3,25 +3,45 @@ package study.querydsl.repository;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.data.domain.Sort;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.support.DeferredJoin;
+import study.querydsl.repository.support.EstimatedPage;
+import study.querydsl.repository.support.QueryDeadline;
+import study.querydsl.repository.support.SingleFlight;
 
+import java.time.Duration;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
+import static org.springframework.transaction.support.TransactionSynchronizationManager.isActualTransactionActive;
+import static org.springframework.transaction.support.TransactionSynchronizationManager.isCurrentTransactionReadOnly;
 import static org.springframework.util.StringUtils.*;
 import static study.querydsl.entity.QMember.*;
 import static study.querydsl.entity.QTeam.*;
 
-@RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
     private final JPAQueryFactory queryFactory;
+    private final SingleFlight<SearchKey, Page<MemberTeamDto>> searchFlight;
+
+    public MemberRepositoryImpl(JPAQueryFactory queryFactory,
+                                MeterRegistry meterRegistry,
+                                @Value("${querydsl.search.coalescing-timeout:5s}") Duration coalescingTimeout) {
+        this.queryFactory = queryFactory;
+        this.searchFlight = new SingleFlight<>("member.search", coalescingTimeout, meterRegistry,
+                page -> !(page instanceof EstimatedPage));
+    }
 
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
@@ -50,10 +70,17 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
      */
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        return coalesce(SearchKey.of("simple", condition, pageable), () -> doSearchPageSimple(condition, pageable));
+    }
+
+    private Page<MemberTeamDto> doSearchPageSimple(MemberSearchCondition condition, Pageable pageable) {
 
         List<MemberTeamDto> content = searchWithPageable(condition, pageable);
 
-        Long totalCount = getTotalCount(condition).fetchOne();
+        if (!QueryDeadline.canAffordCount()) {
+            return QueryDeadline.estimatedPage(content, pageable);
+        }
+        long totalCount = getTotalCount(condition).fetchOne();
 
         return new PageImpl<>(content, pageable, totalCount);
     }
@@ -64,12 +91,79 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
      */
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return coalesce(SearchKey.of("complex", condition, pageable), () -> doSearchPageComplex(condition, pageable));
+    }
+
+    private Page<MemberTeamDto> doSearchPageComplex(MemberSearchCondition condition, Pageable pageable) {
 
         List<MemberTeamDto> content = searchWithPageable(condition, pageable);
 
         JPAQuery<Long> countQuery = getTotalCount(condition);
 
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+        return QueryDeadline.getPage(content, pageable, countQuery::fetchOne);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageDeferred(MemberSearchCondition condition, Pageable pageable) {
+        return coalesce(SearchKey.of("deferred", condition, pageable), () -> doSearchPageDeferred(condition, pageable));
+    }
+
+    /**
+     * 1. 조건, 정렬, offset 을 적용해 member.id 만 조회한다. 팀 이름 조건이 없으면 team 조인도 하지 않는다.
+     * 2. 그 id 들에 대해서만 team 을 조인해 DTO 를 만들고 1의 순서로 맞춘다.
+     */
+    private Page<MemberTeamDto> doSearchPageDeferred(MemberSearchCondition condition, Pageable pageable) {
+        List<Long> ids = idQuery(condition)
+                .orderBy(MemberSort.ENTITY.toOrderSpecifiers(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        List<MemberTeamDto> content = ids.isEmpty()
+                ? Collections.emptyList()
+                : DeferredJoin.inIdOrder(ids, queryFactory
+                        .select(new QMemberTeamDto(
+                                member.id.as("memberId"),
+                                member.username,
+                                member.age,
+                                team.id.as("teamId"),
+                                team.name.as("teamName")
+                        ))
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(member.id.in(ids))
+                        .fetch(), MemberTeamDto::getMemberId);
+
+        JPAQuery<Long> countQuery = getTotalCount(condition);
+
+        return QueryDeadline.getPage(content, pageable, countQuery::fetchOne);
+    }
+
+    private JPAQuery<Long> idQuery(MemberSearchCondition condition) {
+        JPAQuery<Long> query = queryFactory
+                .select(member.id)
+                .from(member);
+        if (hasText(condition.getTeamName())) {
+            query.join(member.team, team);
+        }
+        return query.where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+        );
+    }
+
+    /**
+     * 동시에 들어온 같은 검색은 한 번만 실행한다.
+     * 쓰기 트랜잭션 안에서는 자기 변경분을 봐야 하므로 합치지 않는다.
+     * 추정 건수 페이지는 leader 의 시간 예산으로 만든 것이라 나누지 않는다.
+     */
+    private Page<MemberTeamDto> coalesce(SearchKey key, Supplier<Page<MemberTeamDto>> search) {
+        if (isActualTransactionActive() && !isCurrentTransactionReadOnly()) {
+            return search.get();
+        }
+        return searchFlight.execute(key, search);
     }
 
     private BooleanExpression usernameEq(String username) {
@@ -105,6 +199,7 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
+                .orderBy(MemberSort.ENTITY.toOrderSpecifiers(pageable.getSort()))
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
@@ -123,4 +218,32 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 );
     }
 
+
+    /**
+     * 검색 결과가 같은 요청은 같은 키가 된다. 빈 문자열 조건은 조건 없음과 같다.
+     */
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class SearchKey {
+
+        private final String operation;
+        private final String username;
+        private final String teamName;
+        private final Integer ageGoe;
+        private final Integer ageLoe;
+        private final long offset;
+        private final int pageSize;
+        private final Sort sort;
+
+        static SearchKey of(String operation, MemberSearchCondition condition, Pageable pageable) {
+            return new SearchKey(operation,
+                    hasText(condition.getUsername()) ? condition.getUsername() : null,
+                    hasText(condition.getTeamName()) ? condition.getTeamName() : null,
+                    condition.getAgeGoe(),
+                    condition.getAgeLoe(),
+                    pageable.getOffset(),
+                    pageable.getPageSize(),
+                    pageable.getSort());
+        }
+    }
 }
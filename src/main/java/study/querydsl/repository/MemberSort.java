@@ -0,0 +1,36 @@
+package study.querydsl.repository;
+
+import study.querydsl.repository.support.SortWhitelist;
+import study.querydsl.sql.SMember;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 회원 검색에서 허용하는 정렬 키. 모두 인덱스가 있는 컬럼이다.
+ *
+ * memberId, id : PK
+ * username     : member_username_idx (username, member_id)
+ * age          : member_age_idx (age, member_id)
+ * teamId       : team_id FK 인덱스
+ */
+public final class MemberSort {
+
+    public static final SortWhitelist ENTITY = SortWhitelist.tieBreaker(member.id)
+            .indexed("memberId", member.id)
+            .indexed("id", member.id)
+            .indexed("username", member.username)
+            .indexed("age", member.age)
+            .indexed("teamId", member.team.id)
+            .build();
+
+    public static final SortWhitelist TABLE = SortWhitelist.tieBreaker(SMember.member.memberId)
+            .indexed("memberId", SMember.member.memberId)
+            .indexed("id", SMember.member.memberId)
+            .indexed("username", SMember.member.username)
+            .indexed("age", SMember.member.age)
+            .indexed("teamId", SMember.member.teamId)
+            .build();
+
+    private MemberSort() {
+    }
+}
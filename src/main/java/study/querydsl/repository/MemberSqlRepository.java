@@ -0,0 +1,303 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.SQLExpressions;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.support.DeferredJoin;
+import study.querydsl.repository.support.QueryDeadline;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * MemberRepositoryCustom 의 querydsl-sql 구현.
+ *
+ * 엔티티를 거치지 않고 JDBC 결과를 바로 MemberTeamDto 로 만든다.
+ * JPQL 파싱/번역과 Hibernate 결과 처리가 없으므로 읽기 전용 DTO 검색에만 쓴다.
+ * 모든 쿼리는 현재 요청의 {@link QueryDeadline} 안에서 실행하고, 시간이 부족하면 count 대신 추정값을 쓴다.
+ */
+@Repository
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class MemberSqlRepository implements MemberRepositoryCustom {
+
+    private static final PathBuilder<Object> named = new PathBuilder<>(Object.class, "named");
+    private static final NumberPath<Long> namedMemberId = named.getNumber("member_id", Long.class);
+    private static final StringPath namedUsername = named.getString("username");
+    private static final NumberPath<Integer> namedAge = named.getNumber("age", Integer.class);
+    private static final NumberPath<Long> namedTeamId = named.getNumber("team_id", Long.class);
+    private static final StringPath namedTeamName = named.getString("team_name");
+    private static final NumberPath<Long> namedRowNumber = named.getNumber("name_row", Long.class);
+
+    private final SQLQueryFactory queryFactory;
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return withDeadline(contentQuery(condition)).fetch();
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = withDeadline(contentQuery(condition)
+                .orderBy(MemberSort.TABLE.toOrderSpecifiers(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize()))
+                .fetch();
+
+        return QueryDeadline.getPage(content, pageable, () -> withDeadline(countQuery(condition)).fetchOne());
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = withDeadline(contentQuery(condition)
+                .orderBy(MemberSort.TABLE.toOrderSpecifiers(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize()))
+                .fetch();
+
+        return QueryDeadline.getPage(content, pageable, () -> withDeadline(countQuery(condition)).fetchOne());
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageDeferred(MemberSearchCondition condition, Pageable pageable) {
+        SQLQuery<Long> idQuery = queryFactory
+                .select(member.memberId)
+                .from(member);
+        if (hasText(condition.getTeamName())) {
+            idQuery.join(team).on(member.teamId.eq(team.teamId));
+        }
+        List<Long> ids = withDeadline(idQuery
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .orderBy(MemberSort.TABLE.toOrderSpecifiers(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize()))
+                .fetch();
+
+        List<MemberTeamDto> content = ids.isEmpty()
+                ? Collections.emptyList()
+                : DeferredJoin.inIdOrder(ids, withDeadline(queryFactory
+                        .select(new QMemberTeamDto(
+                                member.memberId,
+                                member.username,
+                                member.age,
+                                team.teamId,
+                                team.name
+                        ))
+                        .from(member)
+                        .leftJoin(team).on(member.teamId.eq(team.teamId))
+                        .where(member.memberId.in(ids)))
+                        .fetch(), MemberTeamDto::getMemberId);
+
+        return QueryDeadline.getPage(content, pageable, () -> withDeadline(countQuery(condition)).fetchOne());
+    }
+
+    /**
+     * 여러 조건을 한 번에 검색한다. 결과는 conditions 와 같은 순서로, 조건마다 memberId 순이다.
+     *
+     * 같은 조건은 한 번만 검색한다. username 만 있는 조건들은 username in (...) 하나로 묶고
+     * 나머지는 조건 번호를 상수 컬럼(tag)으로 붙인 UNION ALL 하나로 보낸다. 최대 두 번 실행된다.
+     * 조건마다 memberId 순으로 maxRows 건까지만 돌려준다. UNION ALL 은 부분마다 limit 을,
+     * username 묶음은 이름별 row_number() 를 인라인 뷰로 감싸 이름마다 자른다. 한 이름이 다른 이름의 몫을 가져가지 않는다.
+     */
+    public List<List<MemberTeamDto>> searchBatch(List<MemberSearchCondition> conditions, int maxRows) {
+        Map<MemberSearchCondition, List<Integer>> byCondition = new LinkedHashMap<>();
+        for (int i = 0; i < conditions.size(); i++) {
+            byCondition.computeIfAbsent(conditions.get(i), c -> new ArrayList<>()).add(i);
+        }
+
+        Map<String, MemberSearchCondition> byUsername = new TreeMap<>();
+        List<MemberSearchCondition> others = new ArrayList<>();
+        for (MemberSearchCondition condition : byCondition.keySet()) {
+            if (isUsernameOnly(condition)) {
+                byUsername.put(condition.getUsername(), condition);
+            } else {
+                others.add(condition);
+            }
+        }
+
+        Map<MemberSearchCondition, List<MemberTeamDto>> rows = new HashMap<>();
+        if (!byUsername.isEmpty()) {
+            for (MemberTeamDto row : usernameIn(byUsername.keySet(), maxRows)) {
+                rows.computeIfAbsent(byUsername.get(row.getUsername()), c -> new ArrayList<>()).add(row);
+            }
+        }
+        if (!others.isEmpty()) {
+            for (Tuple tuple : unionAll(others, maxRows)) {
+                MemberTeamDto row = new MemberTeamDto(
+                        tuple.get(1, Long.class),
+                        tuple.get(2, String.class),
+                        tuple.get(3, Integer.class),
+                        tuple.get(4, Long.class),
+                        tuple.get(5, String.class));
+                rows.computeIfAbsent(others.get(tuple.get(0, Integer.class)), c -> new ArrayList<>()).add(row);
+            }
+        }
+
+        List<List<MemberTeamDto>> results = new ArrayList<>(Collections.nCopies(conditions.size(), null));
+        byCondition.forEach((condition, indexes) -> {
+            List<MemberTeamDto> content = rows.getOrDefault(condition, new ArrayList<>());
+            content.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+            indexes.forEach(i -> results.set(i, content));
+        });
+        return results;
+    }
+
+    private List<MemberTeamDto> usernameIn(Collection<String> usernames, int maxRows) {
+        SQLQuery<?> inner = SQLExpressions
+                .select(
+                        member.memberId.as("member_id"),
+                        member.username.as("username"),
+                        member.age.as("age"),
+                        team.teamId.as("team_id"),
+                        team.name.as("team_name"),
+                        SQLExpressions.rowNumber().over()
+                                .partitionBy(member.username)
+                                .orderBy(member.memberId.asc())
+                                .as("name_row")
+                )
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.teamId))
+                .where(member.username.in(usernames));
+
+        return withDeadline(queryFactory
+                .select(new QMemberTeamDto(namedMemberId, namedUsername, namedAge, namedTeamId, namedTeamName))
+                .from(inner, named)
+                .where(namedRowNumber.loe((long) maxRows)))
+                .fetch();
+    }
+
+    private List<Tuple> unionAll(List<MemberSearchCondition> conditions, int maxRows) {
+        if (conditions.size() == 1) {
+            return withDeadline(tagged(queryFactory.query(), 0, conditions.get(0), maxRows)).fetch();
+        }
+        List<SubQueryExpression<Tuple>> parts = new ArrayList<>(conditions.size());
+        for (int i = 0; i < conditions.size(); i++) {
+            parts.add(tagged(new SQLQuery<Void>(), i, conditions.get(i), maxRows));
+        }
+        return withDeadline(queryFactory.query()).unionAll(parts).fetch();
+    }
+
+    /**
+     * tag 는 바인드 변수가 아닌 숫자 리터럴로 넣는다. UNION 의 각 select 에서 타입이 정해져야 한다.
+     */
+    private SQLQuery<Tuple> tagged(SQLQuery<?> query, int tag, MemberSearchCondition condition, int maxRows) {
+        NumberExpression<Integer> tagColumn = Expressions.numberTemplate(Integer.class, String.valueOf(tag));
+        return query
+                .select(tagColumn.as("tag"),
+                        member.memberId,
+                        member.username,
+                        member.age,
+                        team.teamId,
+                        team.name)
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.teamId))
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .orderBy(member.memberId.asc())
+                .limit(maxRows);
+    }
+
+    /**
+     * 실행 직전에 남은 시간을 JDBC queryTimeout 으로 건다. count 처럼 나중에 실행하는 쿼리는 실행할 때 감싼다.
+     */
+    private static <Q extends SQLQuery<?>> Q withDeadline(Q query) {
+        QueryDeadline.applyTo(query);
+        return query;
+    }
+
+    private static boolean isUsernameOnly(MemberSearchCondition condition) {
+        return hasText(condition.getUsername())
+                && !hasText(condition.getTeamName())
+                && condition.getAgeGoe() == null
+                && condition.getAgeLoe() == null;
+    }
+
+    private SQLQuery<MemberTeamDto> contentQuery(MemberSearchCondition condition) {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.memberId,
+                        member.username,
+                        member.age,
+                        team.teamId,
+                        team.name
+                ))
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.teamId))
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                );
+    }
+
+    /**
+     * 팀 조건이 없으면 team 조인을 빼도 건수가 같다. (team_id 는 team 의 PK)
+     */
+    private SQLQuery<Long> countQuery(MemberSearchCondition condition) {
+        SQLQuery<Long> query = queryFactory
+                .select(member.memberId.count())
+                .from(member);
+        if (hasText(condition.getTeamName())) {
+            query.join(team).on(member.teamId.eq(team.teamId));
+        }
+        return query.where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+        );
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
@@ -1,16 +1,22 @@
 package study.querydsl.repository;
 
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.support.PredicateGuard;
+import study.querydsl.repository.support.QueryDeadline;
 import study.querydsl.repository.support.Querydsl4RepositorySupport;
+import study.querydsl.repository.support.ReadOnlyQuery;
 
 import java.util.List;
+import java.util.function.LongSupplier;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.*;
@@ -20,20 +26,23 @@ import static study.querydsl.entity.QTeam.team;
 public class MemberTestRepository extends Querydsl4RepositorySupport {
 
     public MemberTestRepository() {
-        super(Member.class);
+        super(Member.class, MemberSort.ENTITY);
     }
 
+    @ReadOnlyQuery
     public List<Member> basicSelect() {
         return select(member)
                 .from(member)
                 .fetch();
     }
 
+    @ReadOnlyQuery
     public List<Member> basicSelectFrom() {
         return selectFrom(member)
                 .fetch();
     }
 
+    @ReadOnlyQuery
     public Page<Member> searchPageByApplyPage(MemberSearchCondition condition, Pageable pageable) {
         JPAQuery<Member> jpaQuery = selectFrom(member)
                 .leftJoin(member.team, team)
@@ -44,10 +53,11 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
                         ageLoe(condition.getAgeLoe())
                 );
 
-        List<Member> content = getQuerydsl().applyPagination(pageable, jpaQuery)
+        LongSupplier total = countOf(jpaQuery);
+        List<Member> content = applyPageable(pageable, jpaQuery)
                 .fetch();
 
-        return PageableExecutionUtils.getPage(content, pageable, jpaQuery::fetchCount);
+        return QueryDeadline.getPage(content, pageable, total);
     }
 
     public Page<Member> applyPagination(MemberSearchCondition condition, Pageable pageable) {
@@ -87,6 +97,93 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
         );
     }
 
+    public Page<Member> searchPageDeferred(MemberSearchCondition condition, Pageable pageable) {
+        return applyDeferredPagination(pageable,
+                idQuery -> idQuery
+                        .select(member.id)
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(
+                                usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamName()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())
+                        ),
+                (contentQuery, ids) -> contentQuery
+                        .selectFrom(member)
+                        .leftJoin(member.team, team).fetchJoin()
+                        .where(member.id.in(ids)),
+                Member::getId
+        );
+    }
+
+    /**
+     * plan 에 정한 연관관계까지 한 번에 읽는다.
+     */
+    public List<Member> search(MemberSearchCondition condition, MemberFetchPlan plan) {
+        return fetch(plan, selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                ))
+                .fetch();
+    }
+
+    /**
+     * 컬렉션을 읽는 plan 은 id 페이지를 먼저 구한 뒤 그 id 로만 graph 를 건다.
+     */
+    public Page<Member> searchPage(MemberSearchCondition condition, Pageable pageable, MemberFetchPlan plan) {
+        if (plan.fetchesCollection()) {
+            return applyDeferredPagination(pageable, plan,
+                    idQuery -> idQuery
+                            .select(member.id)
+                            .from(member)
+                            .leftJoin(member.team, team)
+                            .where(
+                                    usernameEq(condition.getUsername()),
+                                    teamNameEq(condition.getTeamName()),
+                                    ageGoe(condition.getAgeGoe()),
+                                    ageLoe(condition.getAgeLoe())
+                            ),
+                    (contentQuery, ids) -> contentQuery
+                            .selectFrom(member)
+                            .where(member.id.in(ids)),
+                    Member::getId
+            );
+        }
+        return applyPagination(pageable, plan, query -> query
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+        );
+    }
+
+    /**
+     * MemberRepository 의 바인딩으로 만든 조건. 순서를 고정해 같은 조건은 같은 SQL 이 되게 한다.
+     */
+    @ReadOnlyQuery
+    public Page<MemberTeamDto> searchByPredicate(Predicate predicate, Pageable pageable) {
+        return applyPagination(pageable, query -> query
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(PredicateGuard.canonical(PredicateGuard.onAlias(predicate, member.team, team)))
+        );
+    }
+
     private BooleanExpression usernameEq(String username) {
         return hasText(username) ? member.username.eq(username) : null;
     }
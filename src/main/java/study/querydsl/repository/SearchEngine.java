@@ -0,0 +1,17 @@
+package study.querydsl.repository;
+
+/**
+ * 회원 검색을 실행할 쿼리 엔진.
+ */
+public enum SearchEngine {
+
+    /**
+     * JPQL → Hibernate. MemberRepositoryImpl
+     */
+    JPA,
+
+    /**
+     * querydsl-sql 로 SQL 을 바로 실행하고 JDBC 행을 DTO 로 옮긴다. MemberSqlRepository
+     */
+    SQL
+}
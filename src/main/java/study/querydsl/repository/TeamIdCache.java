@@ -0,0 +1,78 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.EntityChangedEvent;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀 이름 -> 팀 id 캐시. 없는 팀은 별도 트랜잭션으로 생성한다.
+ */
+@Component
+public class TeamIdCache {
+
+    private final Map<String, Long> ids = new ConcurrentHashMap<>();
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate requiresNew;
+
+    public TeamIdCache(EntityManager em, JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public Long resolve(String teamName) {
+        if (!hasText(teamName)) {
+            return null;
+        }
+        Long id = ids.get(teamName);
+        if (id == null) {
+            synchronized (this) {
+                id = ids.get(teamName);
+                if (id == null) {
+                    id = requiresNew.execute(status -> findOrCreate(teamName));
+                    ids.put(teamName, id);
+                }
+            }
+        }
+        return id;
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.isBulk(Team.class)) {
+            ids.clear();
+        } else {
+            ids.values().removeAll(event.getIds(Team.class));
+        }
+    }
+
+    private Long findOrCreate(String teamName) {
+        Long id = queryFactory
+                .select(team.id)
+                .from(team)
+                .where(team.name.eq(teamName))
+                .fetchFirst();
+        if (id != null) {
+            return id;
+        }
+
+        Team created = new Team(teamName);
+        em.persist(created);
+        return created.getId();
+    }
+}
@@ -0,0 +1,12 @@
+package study.querydsl.repository.support;
+
+/**
+ * 같은 검색을 실행 중인 다른 요청의 결과를 기다리다 대기 한도(또는 자기 시간 예산)를 넘긴 경우.
+ * 쿼리 자체는 이 요청에서 실행되지 않았다.
+ */
+public class CoalescingTimeoutException extends DeadlineExceededException {
+
+    public CoalescingTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
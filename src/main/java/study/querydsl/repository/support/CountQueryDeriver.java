@@ -0,0 +1,260 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.MapExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.JPQLQueryMixin;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * 내용 쿼리(content query)에서 count 쿼리를 만든다.
+ *
+ * <ul>
+ *     <li>projection, order by, offset/limit, fetch join 을 제거한다.</li>
+ *     <li>where/group by/having 에서 참조하지 않는 to-one left join 은 결과 건수에 영향이 없으므로 제거한다.</li>
+ *     <li>having 없는 키 하나짜리 group by 와 값 하나에 건 distinct 는 count(distinct 키) 로 센다.
+ *     null 도 그룹 하나이므로 null 이 있으면 1 을 더한다.</li>
+ *     <li>그 밖의 group by, distinct 쿼리는 JPQL 에서 from 절 서브쿼리로 감쌀 수 없으므로
+ *     그룹 키만 조회해서 건수를 센다. 그룹 수만큼 행을 읽으므로 마지막 수단이다.</li>
+ * </ul>
+ */
+public class CountQueryDeriver {
+
+    private final EntityManager em;
+
+    public CountQueryDeriver(EntityManager em) {
+        this.em = em;
+    }
+
+    public LongSupplier derive(JPAQuery<?> contentQuery) {
+        JPAQuery<?> countQuery = createCountQuery(contentQuery);
+        if (isRowCountQuery(contentQuery.getMetadata())) {
+            return () -> countQuery.fetch().size();
+        }
+        return () -> {
+            Object count = countQuery.fetchOne();
+            return count != null ? ((Number) count).longValue() : 0L;
+        };
+    }
+
+    /**
+     * count(distinct 키) 로 셀 수 없는 group by, distinct 쿼리는 count 대신 행(그룹 키)을 조회하는 쿼리가 된다.
+     */
+    public JPAQuery<?> createCountQuery(JPAQuery<?> contentQuery) {
+        QueryMetadata source = contentQuery.getMetadata();
+        Path<?> root = root(source);
+        Expression<?> distinctKey = distinctKey(source);
+
+        Expression<?> projection;
+        boolean distinct = false;
+        if (distinctKey != null) {
+            projection = Expressions.numberTemplate(Long.class,
+                    "count(distinct {0}) + max(case when {0} is null then 1 else 0 end)", distinctKey);
+        } else if (!source.getGroupBy().isEmpty()) {
+            List<Expression<?>> groupBy = source.getGroupBy();
+            projection = groupBy.size() == 1
+                    ? groupBy.get(0)
+                    : Projections.tuple(groupBy.toArray(new Expression<?>[0]));
+        } else if (source.isDistinct() && !root.equals(source.getProjection())) {
+            projection = source.getProjection();
+            distinct = true;
+        } else if (source.isDistinct()) {
+            projection = Expressions.numberOperation(Long.class, Ops.AggOps.COUNT_DISTINCT_AGG, root);
+        } else {
+            projection = Expressions.numberOperation(Long.class, Ops.AggOps.COUNT_AGG, root);
+        }
+
+        DefaultQueryMetadata metadata = new DefaultQueryMetadata();
+        metadata.setValidate(false);
+        metadata.setDistinct(distinct);
+        copyJoins(source, metadata, referencedRoots(source, projection));
+        metadata.addWhere(source.getWhere());
+        if (distinctKey == null) {
+            source.getGroupBy().forEach(metadata::addGroupBy);
+            metadata.addHaving(source.getHaving());
+        }
+        copyParams(source, metadata);
+        metadata.setProjection(projection);
+
+        return new HintedJPAQuery<>(em, metadata);
+    }
+
+    private static boolean isRowCountQuery(QueryMetadata source) {
+        return distinctKey(source) == null
+                && (!source.getGroupBy().isEmpty() || source.isDistinct() && !root(source).equals(source.getProjection()));
+    }
+
+    /**
+     * 서로 다른 값의 개수가 곧 결과 행 수인 식. 없으면 null.
+     * 키가 여럿이거나 having 으로 그룹을 거르는 경우, 생성자/튜플 projection 에 distinct 를 건 경우는 해당하지 않는다.
+     */
+    private static Expression<?> distinctKey(QueryMetadata source) {
+        List<Expression<?>> groupBy = source.getGroupBy();
+        if (!groupBy.isEmpty()) {
+            return groupBy.size() == 1 && source.getHaving() == null ? groupBy.get(0) : null;
+        }
+        Expression<?> projection = source.getProjection();
+        if (source.isDistinct() && !root(source).equals(projection) && !(projection instanceof FactoryExpression)) {
+            return projection;
+        }
+        return null;
+    }
+
+    private static Path<?> root(QueryMetadata source) {
+        Expression<?> target = source.getJoins().get(0).getTarget();
+        return (Path<?>) (isAlias(target) ? ((Operation<?>) target).getArg(1) : target);
+    }
+
+    private static Set<Path<?>> referencedRoots(QueryMetadata source, Expression<?> projection) {
+        Set<Path<?>> roots = new HashSet<>();
+        collectRoots(source.getWhere(), roots);
+        collectRoots(source.getHaving(), roots);
+        source.getGroupBy().forEach(e -> collectRoots(e, roots));
+        collectRoots(projection, roots);
+        return roots;
+    }
+
+    /**
+     * 뒤에서부터 보면서 필요한 join 만 남긴다. 남긴 join 이 참조하는 alias 는 앞쪽 join 에서도 필요해진다.
+     */
+    private static void copyJoins(QueryMetadata source, DefaultQueryMetadata target, Set<Path<?>> required) {
+        List<JoinExpression> joins = source.getJoins();
+        List<JoinExpression> kept = new ArrayList<>();
+        for (int i = joins.size() - 1; i >= 0; i--) {
+            JoinExpression join = joins.get(i);
+            if (i > 0 && isDroppable(join, required)) {
+                continue;
+            }
+            collectRoots(join.getTarget(), required);
+            collectRoots(join.getCondition(), required);
+            kept.add(join);
+        }
+        Collections.reverse(kept);
+
+        for (JoinExpression join : kept) {
+            target.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                target.addJoinCondition(join.getCondition());
+            }
+            for (JoinFlag flag : join.getFlags()) {
+                if (!flag.equals(JPQLQueryMixin.FETCH) && !flag.equals(JPQLQueryMixin.FETCH_ALL_PROPERTIES)) {
+                    target.addJoinFlag(flag);
+                }
+            }
+        }
+    }
+
+    /**
+     * 참조되지 않는 to-one 연관관계의 left join 만 제거할 수 있다.
+     * 컬렉션 join 이나 연관관계 없는 엔티티 join 은 행 수를 늘릴 수 있으므로 남긴다.
+     */
+    private static boolean isDroppable(JoinExpression join, Set<Path<?>> required) {
+        if (join.getType() != JoinType.LEFTJOIN || !isAlias(join.getTarget())) {
+            return false;
+        }
+        Operation<?> alias = (Operation<?>) join.getTarget();
+        Expression<?> association = alias.getArg(0);
+        if (association instanceof CollectionExpression || association instanceof MapExpression) {
+            return false;
+        }
+        return !required.contains(alias.getArg(1));
+    }
+
+    private static boolean isAlias(Expression<?> target) {
+        return target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void copyParams(QueryMetadata source, DefaultQueryMetadata target) {
+        for (Map.Entry<ParamExpression<?>, Object> param : source.getParams().entrySet()) {
+            target.setParam((ParamExpression) param.getKey(), param.getValue());
+        }
+    }
+
+    private static void collectRoots(Expression<?> expression, Set<Path<?>> roots) {
+        if (expression != null) {
+            expression.accept(RootCollector.INSTANCE, roots);
+        }
+    }
+
+    private static final class RootCollector implements Visitor<Void, Set<Path<?>>> {
+
+        static final RootCollector INSTANCE = new RootCollector();
+
+        @Override
+        public Void visit(Constant<?> expr, Set<Path<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Set<Path<?>> roots) {
+            expr.getArgs().forEach(arg -> collectRoots(arg, roots));
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Set<Path<?>> roots) {
+            expr.getArgs().forEach(arg -> collectRoots(arg, roots));
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Set<Path<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Set<Path<?>> roots) {
+            roots.add(expr.getRoot());
+            return null;
+        }
+
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Set<Path<?>> roots) {
+            QueryMetadata metadata = expr.getMetadata();
+            metadata.getJoins().forEach(join -> {
+                collectRoots(join.getTarget(), roots);
+                collectRoots(join.getCondition(), roots);
+            });
+            collectRoots(metadata.getWhere(), roots);
+            collectRoots(metadata.getHaving(), roots);
+            collectRoots(metadata.getProjection(), roots);
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Set<Path<?>> roots) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    collectRoots((Expression<?>) arg, roots);
+                }
+            }
+            return null;
+        }
+    }
+}
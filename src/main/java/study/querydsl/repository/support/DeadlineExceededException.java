@@ -0,0 +1,15 @@
+package study.querydsl.repository.support;
+
+/**
+ * 요청의 시간 예산을 다 써서 쿼리를 실행하지 않았거나, 예산 안에 끝나지 않아 JDBC 에서 취소된 경우.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+
+    public DeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,35 @@
+package study.querydsl.repository.support;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 지연 조인(late row lookup) 페이징 도우미.
+ *
+ * 1. 조건, 정렬, offset/limit 을 적용해 id 만 조회한다. (인덱스만 읽고, 건너뛰는 행은 프로젝션하지 않는다)
+ * 2. 그 페이지의 id 로 조인과 프로젝션을 한 번 더 조회한다.
+ * 2번 쿼리의 in 절은 순서를 보장하지 않으므로 1번의 id 순서대로 다시 맞춘다.
+ */
+public final class DeferredJoin {
+
+    private DeferredJoin() {
+    }
+
+    public static <ID, T> List<T> inIdOrder(List<ID> ids, List<T> rows, Function<? super T, ID> idOf) {
+        Map<ID, T> byId = new HashMap<>(rows.size() * 2);
+        for (T row : rows) {
+            byId.put(idOf.apply(row), row);
+        }
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (ID id : ids) {
+            T row = byId.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+}
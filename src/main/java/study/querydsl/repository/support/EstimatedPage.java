@@ -0,0 +1,22 @@
+package study.querydsl.repository.support;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * 시간 예산이 부족해 count 를 건너뛴 페이지. 전체 건수는 지금까지 본 행으로 잡은 하한이다.
+ *
+ * JSON 에는 "totalEstimated": true 가 함께 나간다.
+ */
+public class EstimatedPage<T> extends PageImpl<T> {
+
+    public EstimatedPage(List<T> content, Pageable pageable, long total) {
+        super(content, pageable, total);
+    }
+
+    public boolean isTotalEstimated() {
+        return true;
+    }
+}
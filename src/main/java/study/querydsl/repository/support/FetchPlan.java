@@ -0,0 +1,16 @@
+package study.querydsl.repository.support;
+
+/**
+ * 한 번의 조회에서 함께 읽을 연관관계. JPA entity graph 이름으로 정의한다.
+ *
+ * graphName 이 null 이면 엔티티 매핑(LAZY 등) 그대로 읽는다.
+ * 컬렉션을 함께 읽는 plan 은 행이 늘어나므로 limit 을 걸 수 없다. 페이징은 id 를 먼저 정하는 지연 조인으로 한다.
+ */
+public interface FetchPlan {
+
+    String FETCH_GRAPH_HINT = "javax.persistence.fetchgraph";
+
+    String graphName();
+
+    boolean fetchesCollection();
+}
@@ -0,0 +1,62 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.annotation.Nullable;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+/**
+ * javax.persistence.Query 를 만들 때마다 힌트를 붙이는 JPAQuery.
+ * fetch, fetchOne, fetchCount 등 모든 실행 경로가 createQuery 를 거친다.
+ *
+ * - 현재 요청의 쿼리 마감 시간 {@link QueryDeadline}
+ * - 읽기 전용 모드 {@link ReadOnlyQueries} 또는 이 쿼리에 지정한 {@link #readOnly(int)}
+ */
+public class HintedJPAQuery<T> extends JPAQuery<T> {
+
+    private Integer readOnlyFetchSize;
+
+    public HintedJPAQuery(EntityManager em) {
+        super(em);
+    }
+
+    public HintedJPAQuery(EntityManager em, QueryMetadata metadata) {
+        super(em, metadata);
+    }
+
+    public HintedJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata) {
+        super(em, templates, metadata);
+    }
+
+    /**
+     * 이 쿼리만 읽기 전용으로 실행한다. fetchSize 가 0 이하면 fetch size 는 바꾸지 않는다.
+     */
+    public HintedJPAQuery<T> readOnly(int fetchSize) {
+        this.readOnlyFetchSize = fetchSize;
+        return this;
+    }
+
+    @Override
+    protected Query createQuery(@Nullable QueryModifiers modifiers, boolean forCount) {
+        Query query = super.createQuery(modifiers, forCount);
+        QueryDeadline.applyTo(query);
+        if (readOnlyFetchSize != null) {
+            ReadOnlyQueries.applyTo(query, readOnlyFetchSize);
+        } else {
+            ReadOnlyQueries.applyTo(query);
+        }
+        return query;
+    }
+
+    @Override
+    public HintedJPAQuery<T> clone(EntityManager entityManager, JPQLTemplates templates) {
+        HintedJPAQuery<T> query = new HintedJPAQuery<>(entityManager, templates, getMetadata().clone());
+        query.clone(this);
+        query.readOnlyFetchSize = readOnlyFetchSize;
+        return query;
+    }
+}
@@ -0,0 +1,64 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import study.querydsl.entity.EntityChangePublisher;
+
+import javax.persistence.EntityManager;
+
+/**
+ * select, selectFrom, from 으로 만드는 쿼리를 모두 {@link HintedJPAQuery} 로 만든다.
+ *
+ * {@link EntityChangePublisher} 를 주면 update, delete 로 만든 bulk 연산이 한 건 이상 바꿨을 때
+ * {@link EntityChangePublisher#bulkChanged(Class)} 로 알린다. bulk 연산은 엔티티 리스너를 거치지 않기 때문이다.
+ */
+public class HintedJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager em;
+    private final EntityChangePublisher changePublisher;
+
+    public HintedJPAQueryFactory(EntityManager em) {
+        this(em, null);
+    }
+
+    public HintedJPAQueryFactory(EntityManager em, EntityChangePublisher changePublisher) {
+        super(em);
+        this.em = em;
+        this.changePublisher = changePublisher;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new HintedJPAQuery<Void>(em);
+    }
+
+    @Override
+    public JPAUpdateClause update(EntityPath<?> path) {
+        return new JPAUpdateClause(em, path) {
+            @Override
+            public long execute() {
+                return bulkChanged(path, super.execute());
+            }
+        };
+    }
+
+    @Override
+    public JPADeleteClause delete(EntityPath<?> path) {
+        return new JPADeleteClause(em, path) {
+            @Override
+            public long execute() {
+                return bulkChanged(path, super.execute());
+            }
+        };
+    }
+
+    private long bulkChanged(EntityPath<?> path, long count) {
+        if (changePublisher != null && count > 0) {
+            changePublisher.bulkChanged(path.getType());
+        }
+        return count;
+    }
+}
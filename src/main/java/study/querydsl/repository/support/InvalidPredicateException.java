@@ -0,0 +1,15 @@
+package study.querydsl.repository.support;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 인덱스를 쓸 수 없는 검색 조건. 앞쪽 와일드카드나 너무 긴 IN 목록은 받지 않는다.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidPredicateException extends IllegalArgumentException {
+
+    public InvalidPredicateException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,18 @@
+package study.querydsl.repository.support;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 허용하지 않은 정렬 키. 인덱스가 없는 컬럼으로 정렬하면 DB 가 전체를 읽어 정렬해야 하므로 받지 않는다.
+ *
+ * @Repository 빈 안에서 던져지므로 IllegalArgumentException 을 상속하면 예외 변환으로
+ * InvalidDataAccessApiUsageException 이 되어 400 이 아니라 500 으로 나간다. 그래서 RuntimeException 을 상속한다.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidSortException extends RuntimeException {
+
+    public InvalidSortException(String property, Iterable<String> allowed) {
+        super("정렬할 수 없는 키입니다. sort=" + property + ", 허용=" + String.join(",", allowed));
+    }
+}
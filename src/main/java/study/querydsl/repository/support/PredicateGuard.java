@@ -0,0 +1,122 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.support.ReplaceVisitor;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.SimpleExpression;
+import com.querydsl.core.types.dsl.StringExpression;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * QuerydslBindings 에 거는 검색 조건 제한.
+ *
+ * 문자열은 정확히 일치하거나 "abc*" 처럼 뒤쪽 와일드카드만 허용한다. (like 'abc%' 는 인덱스 범위 검색)
+ * 값은 정렬하고 중복을 없애며, 최종 조건도 {@link #canonical(Predicate)} 로 순서를 고정한다.
+ * 파라미터 순서가 달라도 같은 SQL 이 나가므로 plan cache, 결과 캐시 키가 하나로 모인다.
+ * IN 값은 List 로 넘기므로 {@code path.in(...)} 으로 직접 만든 조건과도 equals 가 성립한다.
+ */
+public final class PredicateGuard {
+
+    public static final int MAX_IN_SIZE = 100;
+
+    private static final char WILDCARD = '*';
+
+    private PredicateGuard() {
+    }
+
+    /**
+     * 값이 여럿이면 IN, "abc*" 는 startsWith. 둘이 섞이면 OR 로 묶는다.
+     */
+    public static Optional<Predicate> prefixOrIn(StringExpression path, Collection<? extends String> values) {
+        checkSize(path, values);
+        TreeSet<String> exact = new TreeSet<>();
+        TreeSet<String> prefixes = new TreeSet<>();
+        for (String value : values) {
+            int wildcard = value.indexOf(WILDCARD);
+            if (wildcard < 0) {
+                exact.add(value);
+            } else if (wildcard == value.length() - 1 && wildcard > 0) {
+                prefixes.add(value.substring(0, wildcard));
+            } else {
+                throw new InvalidPredicateException("와일드카드는 값의 끝에만 쓸 수 있습니다. " + path + "=" + value);
+            }
+        }
+
+        BooleanBuilder builder = new BooleanBuilder();
+        if (!exact.isEmpty()) {
+            builder.or(exact.size() == 1 ? path.eq(exact.first()) : path.in(new ArrayList<>(exact)));
+        }
+        prefixes.forEach(prefix -> builder.or(path.startsWith(prefix)));
+        return Optional.ofNullable(builder.getValue());
+    }
+
+    public static <T extends Comparable<? super T>> Optional<Predicate> in(SimpleExpression<T> path, Collection<? extends T> values) {
+        checkSize(path, values);
+        TreeSet<T> sorted = new TreeSet<>(values);
+        if (sorted.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(sorted.size() == 1 ? path.eq(sorted.first()) : path.in(new ArrayList<>(sorted)));
+    }
+
+    /**
+     * 최상위 AND 를 펼쳐 문자열 순으로 다시 묶는다.
+     */
+    public static Predicate canonical(Predicate predicate) {
+        if (predicate == null) {
+            return null;
+        }
+        List<Predicate> terms = new ArrayList<>();
+        flattenAnd(predicate, terms);
+        terms.sort(Comparator.comparing(Object::toString));
+        return ExpressionUtils.allOf(terms);
+    }
+
+    /**
+     * 조건 안의 path 를 조인 별칭으로 바꾼다. 바인딩은 {@code member.team.name} 처럼 루트에서 시작하는 경로를 만들기 때문에,
+     * 이미 {@code leftJoin(member.team, team)} 한 쿼리에 그대로 넣으면 묵시적 inner join 이 하나 더 생긴다.
+     */
+    public static Predicate onAlias(Predicate predicate, Path<?> path, Path<?> alias) {
+        if (predicate == null) {
+            return null;
+        }
+        return (Predicate) predicate.accept(new ReplaceVisitor<Void>() {
+            @Override
+            public Expression<?> visit(Path<?> expr, Void context) {
+                return expr.equals(path) ? alias : super.visit(expr, context);
+            }
+        }, null);
+    }
+
+    private static void flattenAnd(Predicate predicate, List<Predicate> terms) {
+        if (predicate instanceof BooleanBuilder) {
+            Predicate value = ((BooleanBuilder) predicate).getValue();
+            if (value != null) {
+                flattenAnd(value, terms);
+            }
+        } else if (predicate instanceof Operation && ((Operation<?>) predicate).getOperator() == Ops.AND) {
+            for (Object arg : ((Operation<?>) predicate).getArgs()) {
+                flattenAnd((Predicate) arg, terms);
+            }
+        } else {
+            terms.add(predicate);
+        }
+    }
+
+    private static void checkSize(Object path, Collection<?> values) {
+        if (values.size() > MAX_IN_SIZE) {
+            throw new InvalidPredicateException("값은 " + MAX_IN_SIZE + "개까지 줄 수 있습니다. " + path + " 에 " + values.size() + "개");
+        }
+    }
+}
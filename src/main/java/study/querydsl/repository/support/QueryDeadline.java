@@ -0,0 +1,135 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.sql.AbstractSQLQuery;
+import com.querydsl.sql.StatementOptions;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import javax.persistence.Query;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 현재 스레드(요청)의 쿼리 마감 시각.
+ *
+ * 웹 요청마다 DeadlineInterceptor 가 시작하고 끝낸다. 마감이 없으면 아무것도 하지 않는다.
+ * JPA 쿼리를 만들 때 남은 시간을 javax.persistence.query.timeout 힌트로, querydsl-sql 쿼리에는 JDBC queryTimeout 으로 넘기고,
+ * 남은 시간이 countReserve 보다 적으면 count 쿼리 대신 추정값을 쓴다. (응답에 추정임을 표시한다)
+ */
+public final class QueryDeadline {
+
+    public static final String TIMEOUT_HINT = "javax.persistence.query.timeout";
+
+    private static final ThreadLocal<QueryDeadline> current = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+    private final long countReserveNanos;
+
+    private QueryDeadline(long deadlineNanos, long countReserveNanos) {
+        this.deadlineNanos = deadlineNanos;
+        this.countReserveNanos = countReserveNanos;
+    }
+
+    public static void start(Duration budget, Duration countReserve) {
+        current.set(new QueryDeadline(System.nanoTime() + budget.toNanos(), countReserve.toNanos()));
+    }
+
+    public static void clear() {
+        current.remove();
+    }
+
+    public static Optional<Duration> remaining() {
+        QueryDeadline deadline = current.get();
+        return deadline == null
+                ? Optional.empty()
+                : Optional.of(Duration.ofNanos(deadline.deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * 남은 시간을 쿼리 타임아웃 힌트로 건다. 이미 지났으면 실행하지 않는다.
+     *
+     * Hibernate 는 밀리초 힌트를 초 단위로 반올림해 JDBC 에 넘기므로 (500ms 미만이면 0 = 무제한)
+     * 초 단위로 올림한 값을 넘긴다.
+     */
+    public static void applyTo(Query query) {
+        Integer seconds = timeoutSeconds();
+        if (seconds != null) {
+            query.setHint(TIMEOUT_HINT, (int) TimeUnit.SECONDS.toMillis(seconds));
+        }
+    }
+
+    /**
+     * querydsl-sql 쿼리에는 남은 시간을 Statement.setQueryTimeout 으로 건다. 이미 지났으면 실행하지 않는다.
+     */
+    public static void applyTo(AbstractSQLQuery<?, ?> query) {
+        Integer seconds = timeoutSeconds();
+        if (seconds != null) {
+            query.setStatementOptions(StatementOptions.builder().setQueryTimeout(seconds).build());
+        }
+    }
+
+    /**
+     * 남은 시간을 초 단위로 올림한다. 마감이 없으면 null.
+     */
+    private static Integer timeoutSeconds() {
+        QueryDeadline deadline = current.get();
+        if (deadline == null) {
+            return null;
+        }
+        long remainingNanos = deadline.deadlineNanos - System.nanoTime();
+        if (remainingNanos <= 0) {
+            throw new DeadlineExceededException("요청 시간 예산을 모두 사용했습니다.");
+        }
+        return (int) ((remainingNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * 남은 시간이 countReserve 이상이면 count 를 실행할 수 있다. 마감이 없으면 항상 실행한다.
+     */
+    public static boolean canAffordCount() {
+        QueryDeadline deadline = current.get();
+        return deadline == null || deadline.deadlineNanos - System.nanoTime() >= deadline.countReserveNanos;
+    }
+
+    /**
+     * PageableExecutionUtils.getPage 와 같되, count 를 실행할 시간이 부족하면 {@link #estimatedPage(List, Pageable)} 를 돌려준다.
+     */
+    public static <T> Page<T> getPage(List<T> content, Pageable pageable, LongSupplier count) {
+        if (isTotalKnown(content, pageable) || canAffordCount()) {
+            return PageableExecutionUtils.getPage(content, pageable, count);
+        }
+        return estimatedPage(content, pageable);
+    }
+
+    /**
+     * count 없이 지금까지 본 것으로 최소 전체 건수를 잡는다.
+     * 페이지가 꽉 찼으면 다음 페이지가 있다고 보고 1건을 더하고, 추정값임을 {@link EstimatedPage} 로 알린다.
+     * 마지막 페이지처럼 내용만으로 전체 건수가 정해지면 보통 페이지다.
+     */
+    public static <T> Page<T> estimatedPage(List<T> content, Pageable pageable) {
+        if (isTotalKnown(content, pageable)) {
+            return PageableExecutionUtils.getPage(content, pageable, () -> {
+                throw new IllegalStateException("전체 건수가 내용으로 정해지는 페이지입니다.");
+            });
+        }
+        long seen = (pageable.isPaged() ? pageable.getOffset() : 0) + content.size();
+        return new EstimatedPage<>(content, pageable, pageable.isPaged() && content.size() == pageable.getPageSize() ? seen + 1 : seen);
+    }
+
+    /**
+     * PageableExecutionUtils 가 count 없이 전체 건수를 정하는 경우.
+     */
+    private static boolean isTotalKnown(List<?> content, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return true;
+        }
+        if (content.size() >= pageable.getPageSize()) {
+            return false;
+        }
+        return pageable.getOffset() == 0 || !content.isEmpty();
+    }
+}
@@ -5,20 +5,23 @@ import com.querydsl.core.types.dsl.PathBuilder;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
 import org.springframework.data.jpa.repository.support.Querydsl;
 import org.springframework.data.querydsl.SimpleEntityPathResolver;
-import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.Assert;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 /**
  * Querydsl 4.x 버전에 맞춘 Querydsl 지원 라이브러리
@@ -32,10 +35,22 @@ public abstract class Querydsl4RepositorySupport {
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private CountQueryDeriver countQueryDeriver;
+    private final SortWhitelist sortWhitelist;
+    private int readOnlyFetchSize = 500;
 
     public Querydsl4RepositorySupport(Class<?> domainClass) {
+        this(domainClass, null);
+    }
+
+    /**
+     * sortWhitelist 를 주면 Pageable 의 정렬을 허용한 키로만 적용하고 tie-breaker 를 붙인다.
+     * 없으면 엔티티의 아무 속성으로나 정렬한다. (Spring Data 기본 동작)
+     */
+    public Querydsl4RepositorySupport(Class<?> domainClass, SortWhitelist sortWhitelist) {
         Assert.notNull(domainClass, "Domain class must not be null!");
         this.domainClass = domainClass;
+        this.sortWhitelist = sortWhitelist;
     }
 
     @Autowired
@@ -48,7 +63,13 @@ public abstract class Querydsl4RepositorySupport {
 
         this.entityManager = entityManager;
         this.querydsl = new Querydsl(entityManager, new PathBuilder<>(path.getType(), path.getMetadata()));
-        this.queryFactory = new JPAQueryFactory(entityManager);
+        this.queryFactory = new HintedJPAQueryFactory(entityManager);
+        this.countQueryDeriver = new CountQueryDeriver(entityManager);
+    }
+
+    @Autowired
+    public void setReadOnlyFetchSize(@Value("${querydsl.read-only.fetch-size:500}") int readOnlyFetchSize) {
+        this.readOnlyFetchSize = readOnlyFetchSize;
     }
 
     @PostConstruct
@@ -70,6 +91,47 @@ public abstract class Querydsl4RepositorySupport {
         return entityManager;
     }
 
+    /**
+     * 내용 쿼리에서 가장 가벼운 count 쿼리를 만든다.
+     * @see CountQueryDeriver
+     */
+    protected LongSupplier countOf(JPAQuery<?> contentQuery) {
+        return countQueryDeriver.derive(contentQuery);
+    }
+
+    /**
+     * offset, limit 과 정렬을 적용한다.
+     */
+    protected <T> JPAQuery<T> applyPageable(Pageable pageable, JPAQuery<T> query) {
+        if (sortWhitelist == null) {
+            return getQuerydsl().applyPagination(pageable, query);
+        }
+        if (pageable.isPaged()) {
+            query.offset(pageable.getOffset())
+                    .limit(pageable.getPageSize());
+        }
+        return query.orderBy(sortWhitelist.toOrderSpecifiers(pageable.getSort()));
+    }
+
+    /**
+     * 이 쿼리만 읽기 전용으로 실행한다. 메서드 전체라면 {@link ReadOnlyQuery} 를 붙인다.
+     */
+    protected <T> JPAQuery<T> readOnly(JPAQuery<T> query) {
+        return ((HintedJPAQuery<T>) query).readOnly(readOnlyFetchSize);
+    }
+
+    /**
+     * fetch plan 의 entity graph 를 건다. 컬렉션을 읽는 plan 이면 루트가 중복되지 않도록 distinct 를 붙인다.
+     * count 쿼리는 내용 쿼리의 메타데이터만 복사하므로 graph 가 따라가지 않는다.
+     */
+    protected <T> JPAQuery<T> fetch(FetchPlan plan, JPAQuery<T> query) {
+        if (plan.graphName() == null) {
+            return query;
+        }
+        query.setHint(FetchPlan.FETCH_GRAPH_HINT, entityManager.getEntityGraph(plan.graphName()));
+        return plan.fetchesCollection() ? query.distinct() : query;
+    }
+
     protected <T> JPAQuery<T> select(Expression<T> expr) {
         return getQueryFactory().select(expr);
     }
@@ -80,9 +142,57 @@ public abstract class Querydsl4RepositorySupport {
 
     protected <T> Page<T> applyPagination(Pageable pageable, Function<JPAQueryFactory, JPAQuery> contentQuery) {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable, jpaQuery).fetch();
+        LongSupplier total = countOf(jpaQuery);
+        List<T> content = applyPageable(pageable, jpaQuery).fetch();
+
+        return QueryDeadline.getPage(content, pageable, total);
+    }
+
+    /**
+     * fetch plan 을 적용한 페이징. 컬렉션을 읽는 plan 은 limit 을 걸 수 없으므로 applyDeferredPagination 을 쓴다.
+     */
+    protected <T> Page<T> applyPagination(Pageable pageable, FetchPlan plan, Function<JPAQueryFactory, JPAQuery<T>> contentQuery) {
+        Assert.isTrue(!plan.fetchesCollection(), "컬렉션을 읽는 fetch plan 은 applyDeferredPagination 을 사용해야 합니다.");
+        JPAQuery<T> jpaQuery = contentQuery.apply(getQueryFactory());
+        LongSupplier total = countOf(jpaQuery);
+        List<T> content = applyPageable(pageable, fetch(plan, jpaQuery)).fetch();
+
+        return QueryDeadline.getPage(content, pageable, total);
+    }
+
+    /**
+     * 지연 조인 페이징. offset 이 클수록 applyPagination 보다 싸다.
+     *
+     * @param idQuery      조건만 건 id 조회 쿼리. 정렬과 offset/limit 은 여기에 적용되고 count 도 이 쿼리에서 만든다.
+     * @param contentQuery 페이지의 id 목록으로 실제 행을 읽는 쿼리
+     * @param idOf         행에서 id 를 꺼내는 함수
+     * @see DeferredJoin
+     */
+    protected <ID, T> Page<T> applyDeferredPagination(Pageable pageable,
+                                                      Function<JPAQueryFactory, JPAQuery<ID>> idQuery,
+                                                      BiFunction<JPAQueryFactory, List<ID>, JPAQuery<T>> contentQuery,
+                                                      Function<? super T, ID> idOf) {
+        JPAQuery<ID> jpaIdQuery = idQuery.apply(getQueryFactory());
+        LongSupplier total = countOf(jpaIdQuery);
+        List<ID> ids = applyPageable(pageable, jpaIdQuery).fetch();
+
+        List<T> content = ids.isEmpty()
+                ? Collections.emptyList()
+                : DeferredJoin.inIdOrder(ids, contentQuery.apply(getQueryFactory(), ids).fetch(), idOf);
+
+        return QueryDeadline.getPage(content, pageable, total);
+    }
 
-        return PageableExecutionUtils.getPage(content, pageable, jpaQuery::fetchCount);
+    /**
+     * 지연 조인 페이징에 fetch plan 을 적용한다. graph 는 id 목록으로 읽는 내용 쿼리에만 걸린다.
+     */
+    protected <ID, T> Page<T> applyDeferredPagination(Pageable pageable,
+                                                      FetchPlan plan,
+                                                      Function<JPAQueryFactory, JPAQuery<ID>> idQuery,
+                                                      BiFunction<JPAQueryFactory, List<ID>, JPAQuery<T>> contentQuery,
+                                                      Function<? super T, ID> idOf) {
+        return applyDeferredPagination(pageable, idQuery,
+                (queryFactory, ids) -> fetch(plan, contentQuery.apply(queryFactory, ids)), idOf);
     }
 
     protected <T> Page<T> applyPagination(Pageable pageable,
@@ -92,11 +202,11 @@ public abstract class Querydsl4RepositorySupport {
 
         JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
 
-        List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
+        List<T> content = applyPageable(pageable, jpaContentQuery).fetch();
 
         JPAQuery countResult = countQuery.apply(getQueryFactory());
 
-        return PageableExecutionUtils.getPage(content, pageable, countResult::fetchCount);
+        return QueryDeadline.getPage(content, pageable, countResult::fetchCount);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package study.querydsl.repository.support;
+
+import javax.persistence.Query;
+
+/**
+ * 현재 스레드의 읽기 전용 쿼리 모드.
+ *
+ * 켜져 있으면 {@link HintedJPAQuery} 가 모든 쿼리에 org.hibernate.readOnly, flushMode MANUAL, fetchSize 힌트를 건다.
+ * 중첩해서 열 수 있고 닫으면 이전 상태로 돌아간다.
+ */
+public final class ReadOnlyQueries {
+
+    public static final String READ_ONLY_HINT = "org.hibernate.readOnly";
+    public static final String FLUSH_MODE_HINT = "org.hibernate.flushMode";
+    public static final String FETCH_SIZE_HINT = "org.hibernate.fetchSize";
+
+    private static final ThreadLocal<Integer> fetchSize = new ThreadLocal<>();
+
+    private ReadOnlyQueries() {
+    }
+
+    public static Scope open(int size) {
+        Integer previous = fetchSize.get();
+        fetchSize.set(size);
+        return () -> {
+            if (previous == null) {
+                fetchSize.remove();
+            } else {
+                fetchSize.set(previous);
+            }
+        };
+    }
+
+    public static boolean isActive() {
+        return fetchSize.get() != null;
+    }
+
+    static void applyTo(Query query) {
+        Integer size = fetchSize.get();
+        if (size != null) {
+            applyTo(query, size);
+        }
+    }
+
+    static void applyTo(Query query, int size) {
+        query.setHint(READ_ONLY_HINT, true);
+        query.setHint(FLUSH_MODE_HINT, "MANUAL");
+        if (size > 0) {
+            query.setHint(FETCH_SIZE_HINT, size);
+        }
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
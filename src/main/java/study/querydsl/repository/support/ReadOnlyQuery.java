@@ -0,0 +1,24 @@
+package study.querydsl.repository.support;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 메서드 안에서 실행하는 Querydsl 쿼리를 읽기 전용으로 실행한다. {@link ReadOnlyQueries}
+ *
+ * 조회한 엔티티의 스냅샷을 만들지 않고(dirty checking 대상 아님), 쿼리 전에 자동 flush 하지 않는다.
+ * 쓰기 트랜잭션 안에서 호출할 때는 아직 flush 하지 않은 변경이 조회에 보이지 않는다.
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadOnlyQuery {
+
+    /**
+     * JDBC fetch size. 0 이하면 querydsl.read-only.fetch-size
+     */
+    int fetchSize() default 0;
+}
@@ -0,0 +1,40 @@
+package study.querydsl.repository.support;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link ReadOnlyQuery} 가 붙은 메서드(또는 클래스의 모든 메서드)를 읽기 전용 쿼리 모드로 실행한다.
+ */
+@Aspect
+@Component
+public class ReadOnlyQueryAspect {
+
+    private final int defaultFetchSize;
+
+    public ReadOnlyQueryAspect(@Value("${querydsl.read-only.fetch-size:500}") int defaultFetchSize) {
+        this.defaultFetchSize = defaultFetchSize;
+    }
+
+    @Around("@annotation(study.querydsl.repository.support.ReadOnlyQuery) || @within(study.querydsl.repository.support.ReadOnlyQuery)")
+    public Object readOnly(ProceedingJoinPoint joinPoint) throws Throwable {
+        ReadOnlyQuery annotation = annotation(joinPoint);
+        int fetchSize = annotation != null && annotation.fetchSize() > 0 ? annotation.fetchSize() : defaultFetchSize;
+        try (ReadOnlyQueries.Scope ignored = ReadOnlyQueries.open(fetchSize)) {
+            return joinPoint.proceed();
+        }
+    }
+
+    private static ReadOnlyQuery annotation(ProceedingJoinPoint joinPoint) {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        ReadOnlyQuery onMethod = AnnotatedElementUtils.findMergedAnnotation(signature.getMethod(), ReadOnlyQuery.class);
+        return onMethod != null
+                ? onMethod
+                : AnnotatedElementUtils.findMergedAnnotation(joinPoint.getTarget().getClass(), ReadOnlyQuery.class);
+    }
+}
@@ -0,0 +1,143 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 같은 키로 동시에 들어온 호출을 하나의 실행으로 합친다.
+ *
+ * 처음 들어온 호출(leader)만 실제로 실행하고, 실행 중에 들어온 호출(follower)은 그 결과를 기다린다.
+ * 실행이 끝나면 키를 지우므로 결과를 캐시하지 않는다. 예외도 캐시하지 않고 기다리던 호출에만 전달한다.
+ *
+ * leader 의 시간 예산에 묶인 결과는 나누지 않는다. shareable 이 거부한 결과(예: count 를 건너뛴 페이지)나
+ * 시간 예산/쿼리 타임아웃 예외를 받으면 follower 는 자기 예산으로 직접 실행한다.
+ * follower 는 timeout 과 자기 {@link QueryDeadline} 중 짧은 쪽까지만 기다리고 {@link CoalescingTimeoutException} 을 던진다.
+ * leader 의 실행은 취소하지 않는다.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Duration timeout;
+
+    private final Counter executed;
+    private final Counter coalesced;
+    private final Counter timedOut;
+    private final Counter unshared;
+    private final Predicate<? super V> shareable;
+
+    public SingleFlight(String name, Duration timeout, MeterRegistry meterRegistry) {
+        this(name, timeout, meterRegistry, result -> true);
+    }
+
+    public SingleFlight(String name, Duration timeout, MeterRegistry meterRegistry, Predicate<? super V> shareable) {
+        this.timeout = timeout;
+        this.shareable = shareable;
+        this.executed = meterRegistry.counter(name + ".calls", "result", "executed");
+        this.coalesced = meterRegistry.counter(name + ".calls", "result", "coalesced");
+        this.timedOut = meterRegistry.counter(name + ".calls", "result", "timeout");
+        this.unshared = meterRegistry.counter(name + ".calls", "result", "unshared");
+        Gauge.builder(name + ".coalescing.ratio", this, SingleFlight::coalescingRatio)
+                .description("coalesced calls / all calls")
+                .register(meterRegistry);
+    }
+
+    public V execute(K key, Supplier<V> supplier) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, created);
+
+        if (running == null) {
+            executed.increment();
+            try {
+                V result = supplier.get();
+                if (shareable.test(result)) {
+                    created.complete(result);
+                } else {
+                    created.completeExceptionally(NotShared.INSTANCE);
+                }
+                return result;
+            } catch (RuntimeException | Error e) {
+                created.completeExceptionally(isCallerSpecific(e) ? NotShared.INSTANCE : e);
+                throw e;
+            } finally {
+                inFlight.remove(key, created);
+            }
+        }
+
+        coalesced.increment();
+        long waitNanos = waitNanos();
+        if (waitNanos <= 0) {
+            throw new DeadlineExceededException("요청 시간 예산을 모두 사용했습니다.");
+        }
+        try {
+            return running.get(waitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            throw new CoalescingTimeoutException("Coalesced call did not complete within " + Duration.ofNanos(waitNanos), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause == NotShared.INSTANCE) {
+                unshared.increment();
+                return supplier.get();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for coalesced call", e);
+        }
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private long waitNanos() {
+        long limit = timeout.toNanos();
+        return QueryDeadline.remaining()
+                .map(remaining -> Math.min(limit, remaining.toNanos()))
+                .orElse(limit);
+    }
+
+    /**
+     * leader 의 시간 예산 때문에 난 실패. 다른 요청에는 해당하지 않는다.
+     */
+    private static boolean isCallerSpecific(Throwable e) {
+        return e instanceof DeadlineExceededException
+                || e instanceof QueryTimeoutException
+                || e instanceof javax.persistence.QueryTimeoutException;
+    }
+
+    private double coalescingRatio() {
+        double total = executed.count() + coalesced.count();
+        return total == 0 ? 0 : coalesced.count() / total;
+    }
+
+    /**
+     * follower 에게 직접 실행하라고 알리는 표식. 스택을 채우지 않는다.
+     */
+    private static final class NotShared extends RuntimeException {
+
+        private static final NotShared INSTANCE = new NotShared();
+
+        private NotShared() {
+            super("not shared", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 허용한 정렬 키만 Querydsl 경로로 바꾼다.
+ *
+ * 키는 인덱스가 있는 컬럼에만 등록한다. 등록되지 않은 키는 {@link InvalidSortException}.
+ * 정렬 값이 같은 행들의 순서가 페이지마다 달라지지 않도록 항상 tie-breaker(보통 PK)를 마지막에 붙인다.
+ * tie-breaker 는 마지막 정렬 키와 같은 방향이다. (age, member_id) 인덱스는 age desc, member_id desc 로는 거꾸로 읽을 수 있지만
+ * age desc, member_id asc 는 만들지 못한다.
+ * JPA 경로와 querydsl-sql 경로 모두에 쓸 수 있다.
+ */
+public class SortWhitelist {
+
+    private final Map<String, ComparableExpressionBase<?>> paths;
+    private final ComparableExpressionBase<?> tieBreaker;
+
+    private SortWhitelist(Map<String, ComparableExpressionBase<?>> paths, ComparableExpressionBase<?> tieBreaker) {
+        this.paths = Collections.unmodifiableMap(paths);
+        this.tieBreaker = tieBreaker;
+    }
+
+    public static Builder tieBreaker(ComparableExpressionBase<?> tieBreaker) {
+        return new Builder(tieBreaker);
+    }
+
+    public OrderSpecifier<?>[] toOrderSpecifiers(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        boolean tieBroken = false;
+        boolean ascending = true;
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> path = paths.get(order.getProperty());
+            if (path == null) {
+                throw new InvalidSortException(order.getProperty(), paths.keySet());
+            }
+            ascending = order.isAscending();
+            orders.add(ascending ? path.asc() : path.desc());
+            tieBroken |= path.equals(tieBreaker);
+        }
+        if (!tieBroken) {
+            orders.add(ascending ? tieBreaker.asc() : tieBreaker.desc());
+        }
+        return orders.toArray(OrderSpecifier[]::new);
+    }
+
+    public Set<String> keys() {
+        return paths.keySet();
+    }
+
+    public static class Builder {
+
+        private final ComparableExpressionBase<?> tieBreaker;
+        private final Map<String, ComparableExpressionBase<?>> paths = new LinkedHashMap<>();
+
+        private Builder(ComparableExpressionBase<?> tieBreaker) {
+            this.tieBreaker = tieBreaker;
+        }
+
+        /**
+         * 인덱스가 있는 컬럼만 등록한다. 여러 키를 같은 경로로 보내도 된다.
+         */
+        public Builder indexed(String key, ComparableExpressionBase<?> path) {
+            paths.put(key, path);
+            return this;
+        }
+
+        public SortWhitelist build() {
+            return new SortWhitelist(paths, tieBreaker);
+        }
+    }
+}
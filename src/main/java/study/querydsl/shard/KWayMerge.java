@@ -0,0 +1,72 @@
+package study.querydsl.shard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * 각자 정렬된 목록들을 하나의 정렬된 목록으로 합친다.
+ * 같은 키는 하나만 남긴다. (팀 이동 중에는 같은 회원이 두 샤드에 잠깐 있을 수 있다)
+ */
+public final class KWayMerge {
+
+    private KWayMerge() {
+    }
+
+    public static <T, K> List<T> merge(List<List<T>> sortedLists, Comparator<? super T> comparator,
+                                       Function<? super T, K> key, long offset, int limit) {
+        PriorityQueue<Cursor<T>> heap = new PriorityQueue<>(Math.max(1, sortedLists.size()),
+                (a, b) -> comparator.compare(a.head, b.head));
+        for (List<T> list : sortedLists) {
+            Iterator<T> iterator = list.iterator();
+            if (iterator.hasNext()) {
+                heap.add(new Cursor<>(iterator));
+            }
+        }
+
+        List<T> result = new ArrayList<>();
+        K lastKey = null;
+        long skipped = 0;
+        while (!heap.isEmpty() && result.size() < limit) {
+            Cursor<T> cursor = heap.poll();
+            T value = cursor.head;
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+
+            K valueKey = key.apply(value);
+            if (valueKey.equals(lastKey)) {
+                continue;
+            }
+            lastKey = valueKey;
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            result.add(value);
+        }
+        return result;
+    }
+
+    private static class Cursor<T> {
+
+        private final Iterator<T> iterator;
+        private T head;
+
+        Cursor(Iterator<T> iterator) {
+            this.iterator = iterator;
+            this.head = iterator.next();
+        }
+
+        boolean advance() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            head = iterator.next();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package study.querydsl.shard;
+
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.PrimaryKey;
+import com.querydsl.sql.RelationalPathBase;
+
+import java.sql.Types;
+
+import static com.querydsl.core.types.PathMetadataFactory.forVariable;
+
+/**
+ * 팀 배치 디렉터리(shard/schema.sql 의 TEAM_PLACEMENT) Q-type. 0번 샤드에만 쓴다.
+ */
+public class STeamPlacement extends RelationalPathBase<STeamPlacement> {
+
+    private static final long serialVersionUID = -1507335482L;
+
+    public static final STeamPlacement teamPlacement = new STeamPlacement("TEAM_PLACEMENT");
+
+    public final StringPath teamName = createString("teamName");
+
+    public final NumberPath<Integer> shardIndex = createNumber("shardIndex", Integer.class);
+
+    public final PrimaryKey<STeamPlacement> primary = createPrimaryKey(teamName);
+
+    public STeamPlacement(String variable) {
+        super(STeamPlacement.class, forVariable(variable), "PUBLIC", "TEAM_PLACEMENT");
+        addMetadata();
+    }
+
+    public STeamPlacement(Path<? extends STeamPlacement> path) {
+        super(path.getType(), path.getMetadata(), "PUBLIC", "TEAM_PLACEMENT");
+        addMetadata();
+    }
+
+    public STeamPlacement(PathMetadata metadata) {
+        super(STeamPlacement.class, metadata, "PUBLIC", "TEAM_PLACEMENT");
+        addMetadata();
+    }
+
+    public void addMetadata() {
+        addMetadata(teamName, ColumnMetadata.named("TEAM_NAME").withIndex(1).ofType(Types.VARCHAR).withSize(255).notNull());
+        addMetadata(shardIndex, ColumnMetadata.named("SHARD_INDEX").withIndex(2).ofType(Types.INTEGER).withSize(32).notNull());
+    }
+}
@@ -0,0 +1,47 @@
+package study.querydsl.shard;
+
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.spring.SpringConnectionProvider;
+import lombok.Getter;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.function.Function;
+
+/**
+ * 샤드 하나. 자기 DataSource 와 트랜잭션 매니저를 가지며 쿼리는 항상 트랜잭션 안에서 실행한다.
+ */
+public class Shard {
+
+    @Getter
+    private final int index;
+    @Getter
+    private final DataSource dataSource;
+    private final SQLQueryFactory queryFactory;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+
+    public Shard(int index, DataSource dataSource, com.querydsl.sql.Configuration configuration) {
+        this.index = index;
+        this.dataSource = dataSource;
+        this.queryFactory = new SQLQueryFactory(configuration, new SpringConnectionProvider(dataSource));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    public <T> T read(Function<SQLQueryFactory, T> work) {
+        return readTransaction.execute(status -> work.apply(queryFactory));
+    }
+
+    public <T> T write(Function<SQLQueryFactory, T> work) {
+        return writeTransaction.execute(status -> work.apply(queryFactory));
+    }
+
+    @Override
+    public String toString() {
+        return "shard" + index;
+    }
+}
@@ -0,0 +1,52 @@
+package study.querydsl.shard;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * querydsl.shard.enabled=true 일 때만 샤드 DataSource 들을 만든다.
+ * 샤드 DataSource 는 빈으로 등록하지 않는다. (기본 DataSource 자동 설정을 건드리지 않도록)
+ * 대신 ShardRouter 가 가지고 있다가 종료할 때 닫는다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "querydsl.shard.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardProperties.class)
+public class ShardConfig {
+
+    @Bean
+    public ShardRouter shardRouter(ShardProperties properties, com.querydsl.sql.Configuration querydslSqlConfiguration) {
+        List<Shard> shards = new ArrayList<>();
+        for (ShardProperties.DataSource source : properties.getDataSources()) {
+            DataSource dataSource = DataSourceBuilder.create()
+                    .url(source.getUrl())
+                    .username(source.getUsername())
+                    .password(source.getPassword())
+                    .build();
+            if (properties.isInitializeSchema()) {
+                DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("shard/schema.sql")), dataSource);
+            }
+            shards.add(new Shard(shards.size(), dataSource, querydslSqlConfiguration));
+        }
+        return new ShardRouter(shards, properties.getPlacements());
+    }
+
+    @Bean
+    public ShardedMemberRepository shardedMemberRepository(ShardRouter shardRouter, ShardProperties properties) {
+        return new ShardedMemberRepository(shardRouter, properties.getFanOutThreads());
+    }
+
+    @Bean
+    public TeamRebalancer teamRebalancer(ShardRouter shardRouter) {
+        return new TeamRebalancer(shardRouter);
+    }
+}
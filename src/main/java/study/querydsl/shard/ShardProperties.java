@@ -0,0 +1,42 @@
+package study.querydsl.shard;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "querydsl.shard")
+public class ShardProperties {
+
+    private boolean enabled;
+
+    /**
+     * 샤드 목록. 순서가 샤드 번호다.
+     */
+    private List<DataSource> dataSources = new ArrayList<>();
+
+    /**
+     * 팀 이름 → 샤드 번호. 없는 팀은 이름 해시로 정한다.
+     * 배치 디렉터리에 이미 있는 팀(옮긴 팀)에는 적용하지 않는다.
+     */
+    private Map<String, Integer> placements = new HashMap<>();
+
+    private int fanOutThreads = 8;
+
+    /**
+     * 시작할 때 shard/schema.sql 로 각 샤드에 테이블을 만든다. (배치 디렉터리 포함)
+     */
+    private boolean initializeSchema = true;
+
+    @Getter @Setter
+    public static class DataSource {
+        private String url;
+        private String username = "sa";
+        private String password = "";
+    }
+}
@@ -0,0 +1,130 @@
+package study.querydsl.shard;
+
+import com.querydsl.core.Tuple;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static study.querydsl.shard.STeamPlacement.teamPlacement;
+
+/**
+ * 팀 이름으로 샤드를 정한다.
+ *
+ * 명시적으로 배치된 팀은 그 샤드로, 나머지는 이름 해시로 정한다. 팀이 없는 회원은 0번 샤드에 둔다.
+ * 배치는 0번 샤드의 TEAM_PLACEMENT 테이블(디렉터리)에 두어 재시작해도 TeamRebalancer 가 옮긴 배치를 그대로 본다.
+ * 팀마다 처음 라우팅할 때 한 번만 읽고 메모리에 둔다. (배치가 없는 팀도 기억한다) {@link #place(String, int)} 는 그 팀의 캐시를 비운다.
+ * 다른 인스턴스가 옮긴 배치는 {@link #invalidate()} 뒤에 보인다.
+ * 설정(querydsl.shard.placements)은 디렉터리에 아직 없는 팀의 초기값으로만 쓴다.
+ */
+public class ShardRouter implements AutoCloseable {
+
+    private final List<Shard> shards;
+    private final Shard directory;
+    private final Map<String, Integer> placementCache = new ConcurrentHashMap<>();
+
+    public ShardRouter(List<Shard> shards, Map<String, Integer> placements) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("shard 가 하나 이상 필요합니다.");
+        }
+        this.shards = List.copyOf(shards);
+        this.directory = shards.get(0);
+        placements.forEach(this::placeIfAbsent);
+    }
+
+    public Shard route(String teamName) {
+        return shards.get(indexOf(teamName));
+    }
+
+    public int indexOf(String teamName) {
+        if (teamName == null) {
+            return 0;
+        }
+        return placementCache.computeIfAbsent(teamName, this::readPlacement);
+    }
+
+    /**
+     * 캐시를 모두 비운다. 다음 라우팅부터 디렉터리를 다시 읽는다.
+     */
+    public void invalidate() {
+        placementCache.clear();
+    }
+
+    /**
+     * 디렉터리에 먼저 기록한다. 기록이 끝나야 원래 샤드의 데이터를 지울 수 있다.
+     */
+    public void place(String teamName, int index) {
+        checkIndex(index);
+        directory.write(queryFactory -> queryFactory.merge(teamPlacement)
+                .keys(teamPlacement.teamName)
+                .set(teamPlacement.teamName, teamName)
+                .set(teamPlacement.shardIndex, index)
+                .execute());
+        placementCache.remove(teamName);
+    }
+
+    public Shard get(int index) {
+        checkIndex(index);
+        return shards.get(index);
+    }
+
+    public List<Shard> all() {
+        return shards;
+    }
+
+    public Map<String, Integer> placements() {
+        List<Tuple> rows = directory.read(queryFactory -> queryFactory
+                .select(teamPlacement.teamName, teamPlacement.shardIndex)
+                .from(teamPlacement)
+                .orderBy(teamPlacement.teamName.asc())
+                .fetch());
+        Map<String, Integer> placements = new LinkedHashMap<>();
+        rows.forEach(row -> placements.put(row.get(teamPlacement.teamName), row.get(teamPlacement.shardIndex)));
+        return placements;
+    }
+
+    /**
+     * 샤드 DataSource 는 빈이 아니므로 여기서 닫는다. (Spring 이 빈의 close() 를 호출한다)
+     */
+    @Override
+    public void close() throws Exception {
+        for (Shard shard : shards) {
+            DataSource dataSource = shard.getDataSource();
+            if (dataSource instanceof AutoCloseable) {
+                ((AutoCloseable) dataSource).close();
+            }
+        }
+    }
+
+    private int readPlacement(String teamName) {
+        Integer placed = directory.read(queryFactory -> queryFactory
+                .select(teamPlacement.shardIndex)
+                .from(teamPlacement)
+                .where(teamPlacement.teamName.eq(teamName))
+                .fetchOne());
+        return placed != null ? placed : Math.floorMod(teamName.hashCode(), shards.size());
+    }
+
+    private void placeIfAbsent(String teamName, int index) {
+        checkIndex(index);
+        directory.write(queryFactory -> {
+            boolean placed = queryFactory
+                    .selectOne()
+                    .from(teamPlacement)
+                    .where(teamPlacement.teamName.eq(teamName))
+                    .fetchFirst() != null;
+            return placed ? 0L : queryFactory.insert(teamPlacement)
+                    .set(teamPlacement.teamName, teamName)
+                    .set(teamPlacement.shardIndex, index)
+                    .execute();
+        });
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= shards.size()) {
+            throw new IllegalArgumentException("없는 shard 입니다. index=" + index);
+        }
+    }
+}
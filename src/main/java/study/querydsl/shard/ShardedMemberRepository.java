@@ -0,0 +1,229 @@
+package study.querydsl.shard;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.MemberSort;
+import study.querydsl.repository.support.InvalidSortException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * 팀 단위로 나뉜 샤드들에 대한 회원 검색.
+ *
+ * 팀 이름 조건이 있으면 그 팀의 샤드 하나만 조회한다.
+ * 없으면 모든 샤드에 병렬로 조회한 뒤, 샤드별로 정렬된 결과를 k-way 병합하고 count 는 합산한다.
+ * 정렬은 MemberSort.TABLE 의 키만 지원하며(그 외는 {@link InvalidSortException}) memberId 를 마지막 정렬 기준으로 붙인다.
+ */
+public class ShardedMemberRepository implements AutoCloseable {
+
+    private final ShardRouter router;
+    private final ExecutorService fanOutExecutor;
+
+    public ShardedMemberRepository(ShardRouter router, int fanOutThreads) {
+        this.router = router;
+        this.fanOutExecutor = Executors.newFixedThreadPool(fanOutThreads);
+    }
+
+    /**
+     * 팀이 있으면 팀도 같은 샤드에 넣는다. id 는 호출한 쪽에서 정해서 넘긴다.
+     */
+    public void insert(MemberTeamDto row) {
+        router.route(row.getTeamName()).write(queryFactory -> {
+            if (row.getTeamId() != null) {
+                queryFactory.merge(team)
+                        .keys(team.teamId)
+                        .set(team.teamId, row.getTeamId())
+                        .set(team.name, row.getTeamName())
+                        .execute();
+            }
+            return queryFactory.insert(member)
+                    .set(member.memberId, row.getMemberId())
+                    .set(member.username, row.getUsername())
+                    .set(member.age, row.getAge())
+                    .set(member.teamId, row.getTeamId())
+                    .execute();
+        });
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return searchPage(condition, Pageable.unpaged()).getContent();
+    }
+
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        List<Shard> shards = shardsFor(condition);
+        List<OrderSpecifier<?>> orders = orderSpecifiers(pageable.getSort());
+
+        List<List<MemberTeamDto>> perShard = fanOut(shards, shard -> shard.read(queryFactory -> {
+            SQLQuery<MemberTeamDto> query = contentQuery(queryFactory, condition)
+                    .orderBy(orders.toArray(OrderSpecifier[]::new));
+            // 병합 후 offset 을 적용하므로 샤드마다 offset + size 건까지 읽는다.
+            if (pageable.isPaged()) {
+                query.limit(pageable.getOffset() + pageable.getPageSize());
+            }
+            return query.fetch();
+        }));
+
+        List<MemberTeamDto> content = KWayMerge.merge(perShard, comparator(pageable.getSort()), MemberTeamDto::getMemberId,
+                pageable.isPaged() ? pageable.getOffset() : 0,
+                pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE);
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(shards, condition));
+    }
+
+    public long count(MemberSearchCondition condition) {
+        return count(shardsFor(condition), condition);
+    }
+
+    private long count(List<Shard> shards, MemberSearchCondition condition) {
+        return fanOut(shards, shard -> shard.read(queryFactory -> countQuery(queryFactory, condition).fetchOne()))
+                .stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    private List<Shard> shardsFor(MemberSearchCondition condition) {
+        return hasText(condition.getTeamName())
+                ? List.of(router.route(condition.getTeamName()))
+                : router.all();
+    }
+
+    private <T> List<T> fanOut(List<Shard> shards, Function<Shard, T> work) {
+        if (shards.size() == 1) {
+            return List.of(work.apply(shards.get(0)));
+        }
+        List<CompletableFuture<T>> futures = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> work.apply(shard), fanOutExecutor))
+                .collect(Collectors.toList());
+        try {
+            List<T> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+            return results;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private SQLQuery<MemberTeamDto> contentQuery(SQLQueryFactory queryFactory, MemberSearchCondition condition) {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.memberId,
+                        member.username,
+                        member.age,
+                        team.teamId,
+                        team.name
+                ))
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.teamId))
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                );
+    }
+
+    private SQLQuery<Long> countQuery(SQLQueryFactory queryFactory, MemberSearchCondition condition) {
+        SQLQuery<Long> query = queryFactory
+                .select(member.memberId.count())
+                .from(member);
+        if (hasText(condition.getTeamName())) {
+            query.join(team).on(member.teamId.eq(team.teamId));
+        }
+        return query.where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+        );
+    }
+
+    /**
+     * 허용 키와 tie-breaker 는 querydsl-sql 검색과 같다. (MemberSort.TABLE)
+     * 병합 비교와 맞도록 null 은 오름차순에서 앞, 내림차순에서 뒤로 고정한다.
+     */
+    private static List<OrderSpecifier<?>> orderSpecifiers(Sort sort) {
+        return Arrays.stream(MemberSort.TABLE.toOrderSpecifiers(sort))
+                .<OrderSpecifier<?>>map(order -> order.isAscending() ? order.nullsFirst() : order.nullsLast())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * DB 정렬과 같은 순서여야 병합 결과가 맞다. null 은 오름차순에서 앞, 내림차순에서 뒤.
+     */
+    private static Comparator<MemberTeamDto> comparator(Sort sort) {
+        Comparator<MemberTeamDto> comparator = (a, b) -> 0;
+        boolean ascending = true;
+        for (Sort.Order order : sort) {
+            Comparator<MemberTeamDto> next = sortComparator(order.getProperty());
+            ascending = order.isAscending();
+            comparator = comparator.thenComparing(ascending ? next : next.reversed());
+        }
+        // tie-breaker 는 SortWhitelist 와 같이 마지막 정렬 키의 방향을 따른다.
+        Comparator<MemberTeamDto> tieBreaker = Comparator.comparing(MemberTeamDto::getMemberId);
+        return comparator.thenComparing(ascending ? tieBreaker : tieBreaker.reversed());
+    }
+
+    private static Comparator<MemberTeamDto> sortComparator(String property) {
+        switch (property) {
+            case "memberId":
+            case "id":
+                return Comparator.comparing(MemberTeamDto::getMemberId);
+            case "username":
+                return Comparator.comparing(MemberTeamDto::getUsername, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "age":
+                return Comparator.comparingInt(MemberTeamDto::getAge);
+            case "teamId":
+                return Comparator.comparing(MemberTeamDto::getTeamId, Comparator.nullsFirst(Comparator.naturalOrder()));
+            default:
+                throw new InvalidSortException(property, MemberSort.TABLE.keys());
+        }
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    @Override
+    public void close() {
+        fanOutExecutor.shutdown();
+    }
+}
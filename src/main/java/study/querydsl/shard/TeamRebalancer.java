@@ -0,0 +1,95 @@
+package study.querydsl.shard;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.sql.dml.SQLInsertClause;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * 팀 하나를 다른 샤드로 옮긴다.
+ *
+ * 1. 대상 샤드에 팀과 회원을 복사한다. (한 트랜잭션)
+ * 2. 라우팅을 대상 샤드로 바꾼다. (0번 샤드의 배치 디렉터리에 기록)
+ * 3. 원래 샤드에서 지운다. (한 트랜잭션)
+ *
+ * 2와 3 사이에는 두 샤드에 같은 회원이 있다. 검색 병합은 memberId 로 중복을 걸러내지만
+ * 전체 count 는 그 사이 잠깐 크게 나올 수 있다. 이동 중인 팀에 대한 쓰기는 멈춰야 한다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class TeamRebalancer {
+
+    private static final int COPY_BATCH_SIZE = 1000;
+
+    private final ShardRouter router;
+
+    /**
+     * @return 옮긴 회원 수
+     */
+    public long moveTeam(String teamName, int targetIndex) {
+        Shard source = router.route(teamName);
+        Shard target = router.get(targetIndex);
+        if (source.getIndex() == targetIndex) {
+            return 0;
+        }
+
+        Tuple teamRow = source.read(queryFactory -> queryFactory
+                .select(team.teamId, team.name)
+                .from(team)
+                .where(team.name.eq(teamName))
+                .fetchOne());
+        if (teamRow == null) {
+            router.place(teamName, targetIndex);
+            return 0;
+        }
+        Long teamId = teamRow.get(team.teamId);
+
+        List<Tuple> memberRows = source.read(queryFactory -> queryFactory
+                .select(member.memberId, member.username, member.age)
+                .from(member)
+                .where(member.teamId.eq(teamId))
+                .fetch());
+
+        target.write(queryFactory -> {
+            queryFactory.merge(team)
+                    .keys(team.teamId)
+                    .set(team.teamId, teamId)
+                    .set(team.name, teamName)
+                    .execute();
+
+            SQLInsertClause insert = queryFactory.insert(member);
+            int batched = 0;
+            for (Tuple row : memberRows) {
+                insert.set(member.memberId, row.get(member.memberId))
+                        .set(member.username, row.get(member.username))
+                        .set(member.age, row.get(member.age))
+                        .set(member.teamId, teamId)
+                        .addBatch();
+                if (++batched == COPY_BATCH_SIZE) {
+                    insert.execute();
+                    insert = queryFactory.insert(member);
+                    batched = 0;
+                }
+            }
+            if (batched > 0) {
+                insert.execute();
+            }
+            return null;
+        });
+
+        router.place(teamName, targetIndex);
+
+        source.write(queryFactory -> {
+            queryFactory.delete(member).where(member.teamId.eq(teamId)).execute();
+            return queryFactory.delete(team).where(team.teamId.eq(teamId)).execute();
+        });
+
+        log.info("team moved. team={}, {} -> {}, members={}", teamName, source, target, memberRows.size());
+        return memberRows.size();
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * querydsl-sql 용 테이블 Q-type.
+ *
+ * JPA 가 만든 MEMBER, TEAM 테이블(H2, PUBLIC 스키마)을 MetaDataExporter(namePrefix "S")로 뽑은 결과다.
+ * 엔티티 매핑이 바뀌면 다시 생성해야 한다.
+ */
+package study.querydsl.sql;
@@ -0,0 +1,23 @@
+create table if not exists team (
+    team_id bigint not null,
+    name varchar(255),
+    primary key (team_id)
+);
+
+create table if not exists member (
+    member_id bigint not null,
+    age integer not null,
+    username varchar(255),
+    team_id bigint,
+    primary key (member_id),
+    foreign key (team_id) references team (team_id)
+);
+
+create index if not exists member_team_idx on member (team_id);
+
+-- 팀 → 샤드 배치. 0번 샤드의 것만 쓴다. (ShardRouter)
+create table if not exists team_placement (
+    team_name varchar(255) not null,
+    shard_index integer not null,
+    primary key (team_name)
+);
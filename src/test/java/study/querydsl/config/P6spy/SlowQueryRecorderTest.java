@@ -0,0 +1,55 @@
+package study.querydsl.config.P6spy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"querydsl.slow-query.enabled=true", "querydsl.slow-query.threshold=0ms"})
+class SlowQueryRecorderTest {
+
+    @Autowired
+    SlowQueryRecorder slowQueryRecorder;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    public void before() {
+        slowQueryRecorder.clear();
+    }
+
+    @Test
+    public void recordWithValuesCallerAndPlan() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("slowMember");
+
+        memberRepository.search(condition);
+
+        List<SlowQuery> entries = slowQueryRecorder.getEntries();
+        assertThat(entries).isNotEmpty();
+        SlowQuery slowQuery = entries.get(entries.size() - 1);
+        assertThat(slowQuery.getSql()).contains("'slowMember'");
+        assertThat(slowQuery.getCaller()).startsWith("study.querydsl.repository.MemberRepositoryImpl.search");
+        for (int i = 0; i < 50 && slowQuery.getPlan() == null; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(slowQuery.getPlan()).doesNotStartWith("explain failed");
+    }
+
+    @Test
+    public void keepOnlyCapacity() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        for (int i = 0; i < 150; i++) {
+            memberRepository.search(condition);
+        }
+
+        assertThat(slowQueryRecorder.getEntries()).hasSize(100);
+    }
+}
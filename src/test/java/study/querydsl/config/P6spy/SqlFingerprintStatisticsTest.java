@@ -0,0 +1,111 @@
+package study.querydsl.config.P6spy;
+
+import com.p6spy.engine.common.ConnectionInformation;
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.StatementInformation;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlFingerprintStatisticsTest {
+
+    SqlFingerprintStatistics statistics = new SqlFingerprintStatistics();
+
+    @Test
+    public void aggregateBySameShape() throws Exception {
+        statistics.onAfterAnyExecute(statement("select * from member where member_id=1"), 500, null);
+        statistics.onAfterAnyExecute(statement("select * from member where member_id=2"), 1_500_000, null);
+        statistics.onAfterAnyExecute(statement("select * from member where member_id=3"), 3_000, new SQLException("boom"));
+
+        List<SqlStatementStats> top = statistics.top(10, "calls");
+
+        assertEquals(1, top.size());
+        SqlStatementStats stats = top.get(0);
+        assertEquals("select * from member where member_id=?", stats.getFingerprint());
+        assertEquals(3, stats.getCalls());
+        assertEquals(1, stats.getErrors());
+        assertEquals(0.0005, stats.getMinMillis(), 1e-9);
+        assertEquals(1.5, stats.getMaxMillis(), 1e-9);
+        assertEquals(1.5035, stats.getTotalMillis(), 1e-9);
+        assertEquals(1.5035 / 3, stats.getMeanMillis(), 1e-9);
+        assertEquals(Map.of("<1us", 1L, "<4us", 1L, "<2048us", 1L), stats.getHistogram());
+    }
+
+    @Test
+    public void countRowsFromUpdateAndBatch() throws Exception {
+        String sql = "update member set age=? where member_id=?";
+        statistics.onAfterExecuteUpdate(prepared(sql), 1_000, 3, null);
+        statistics.onAfterExecuteBatch(prepared(sql), 1_000, new int[]{1, 1, -2}, null);
+
+        SqlStatementStats stats = statistics.top(1, "total").get(0);
+
+        assertEquals(2, stats.getCalls());
+        assertEquals(5, stats.getRows());
+    }
+
+    @Test
+    public void skipExplain() throws Exception {
+        statistics.onAfterAnyExecute(statement("EXPLAIN select * from member"), 1_000, null);
+
+        assertThat(statistics.top(10, "total")).isEmpty();
+    }
+
+    @Test
+    public void orderByMaxAndMean() throws Exception {
+        statistics.onAfterAnyExecute(statement("select * from member"), 10_000, null);
+        statistics.onAfterAnyExecute(statement("select * from member"), 10_000, null);
+        statistics.onAfterAnyExecute(statement("select * from team"), 15_000, null);
+
+        assertThat(statistics.top(2, "calls")).extracting("fingerprint")
+                .containsExactly("select * from member", "select * from team");
+        assertThat(statistics.top(2, "max")).extracting("fingerprint")
+                .containsExactly("select * from team", "select * from member");
+        assertThat(statistics.top(2, "mean")).extracting("fingerprint")
+                .containsExactly("select * from team", "select * from member");
+        assertThat(statistics.top(2, "total")).extracting("fingerprint")
+                .containsExactly("select * from member", "select * from team");
+        assertThrows(IllegalArgumentException.class, () -> statistics.top(2, "rows"));
+    }
+
+    @Test
+    public void overflowIntoOther() throws Exception {
+        for (int i = 0; i < 5_001; i++) {
+            statistics.onAfterAnyExecute(statement("select col" + i + " from member"), 1_000, null);
+        }
+        statistics.onAfterAnyExecute(statement("select col0 from member"), 1_000, null);
+
+        List<SqlStatementStats> top = statistics.top(10_000, "calls");
+
+        assertEquals(5_001, top.size());
+        assertThat(top).filteredOn(stats -> stats.getFingerprint().equals(SqlFingerprintStatistics.OTHER))
+                .singleElement()
+                .extracting("calls").isEqualTo(1L);
+        assertThat(top).filteredOn(stats -> stats.getFingerprint().equals("select col0 from member"))
+                .singleElement()
+                .extracting("calls").isEqualTo(2L);
+    }
+
+    @Test
+    public void resetClearsStatistics() throws Exception {
+        statistics.onAfterAnyExecute(statement("select * from member"), 1_000, null);
+
+        statistics.reset();
+
+        assertThat(statistics.top(10, "total")).isEmpty();
+    }
+
+    private static StatementInformation statement(String sql) {
+        StatementInformation statementInformation = new StatementInformation(ConnectionInformation.fromTestConnection(null));
+        statementInformation.setStatementQuery(sql);
+        return statementInformation;
+    }
+
+    private static PreparedStatementInformation prepared(String sql) {
+        return new PreparedStatementInformation(ConnectionInformation.fromTestConnection(null), sql);
+    }
+}
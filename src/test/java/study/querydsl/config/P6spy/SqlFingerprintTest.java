@@ -0,0 +1,32 @@
+package study.querydsl.config.P6spy;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlFingerprintTest {
+
+    @Test
+    public void collapseLiterals() throws Exception {
+        String fingerprint = SqlFingerprint.of("select member0_.member_id as col_0_0_ from member member0_\n" +
+                "  where member0_.username='it''s me' and member0_.age>=20 limit 15");
+
+        assertThat(fingerprint).isEqualTo("select member0_.member_id as col_0_0_ from member member0_ " +
+                "where member0_.username=? and member0_.age>=? limit ?");
+    }
+
+    @Test
+    public void collapseInList() throws Exception {
+        String three = SqlFingerprint.of("select * from member where member_id in (?, ?, ?)");
+        String five = SqlFingerprint.of("select * from member where member_id in (1 , 2 , 3 , 4 , 5)");
+
+        assertThat(three).isEqualTo("select * from member where member_id in (...)");
+        assertThat(five).isEqualTo(three);
+    }
+
+    @Test
+    public void sameShapeSameFingerprint() throws Exception {
+        assertThat(SqlFingerprint.of("insert into team (name, team_id) values (?, ?)"))
+                .isEqualTo(SqlFingerprint.of("insert into team (name, team_id) values ('teamA', 3);"));
+    }
+}
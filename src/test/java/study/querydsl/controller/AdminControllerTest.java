@@ -0,0 +1,28 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AdminControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void sqlStatsOrderBy() throws Exception {
+        for (String orderBy : new String[]{"total", "calls", "mean", "max"}) {
+            mockMvc.perform(get("/admin/sql-stats").param("orderBy", orderBy))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/admin/sql-stats").param("orderBy", "rows"))
+                .andExpect(status().isBadRequest());
+    }
+}
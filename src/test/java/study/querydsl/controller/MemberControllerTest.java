@@ -0,0 +1,237 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.Comparator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    /**
+     * 형식마다 정수 크기를 다르게 쓸 수 있으므로 숫자는 값으로만 비교한다.
+     */
+    private static final Comparator<JsonNode> NUMERIC = (a, b) ->
+            a.equals(b) || a.isNumber() && b.isNumber() && a.asLong() == b.asLong() ? 0 : 1;
+
+    @Test
+    public void matchingEtagIsNotModified() throws Exception {
+        String etag = etag("/v1/members");
+
+        mockMvc.perform(get("/v1/members").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+
+    @Test
+    public void committedChangeChangesEtag() throws Exception {
+        String before = etag("/v1/members");
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = new Team("etagTeam");
+            em.persist(team);
+            em.persist(new Member("etagMember", 10, team));
+        });
+        String afterInsert = etag("/v1/members");
+
+        assertThat(afterInsert).isNotEqualTo(before);
+        mockMvc.perform(get("/v1/members").header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk());
+
+        transactionTemplate.executeWithoutResult(status -> queryFactory
+                .update(member)
+                .set(member.age, 11)
+                .where(member.username.eq("etagMember"))
+                .execute());
+
+        assertThat(etag("/v1/members")).isNotEqualTo(afterInsert);
+    }
+
+    @Test
+    public void rolledBackChangeKeepsEtag() throws Exception {
+        String before = etag("/v1/members");
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Team("etagRollbackTeam"));
+            status.setRollbackOnly();
+        });
+
+        assertThat(etag("/v1/members")).isEqualTo(before);
+    }
+
+    @Test
+    public void pageVariantsVaryByAccept() throws Exception {
+        for (String url : new String[]{"/v2/members", "/v3/members"}) {
+            String etag = mockMvc.perform(get(url).accept(MemberController.COLUMNAR_JSON_VALUE))
+                    .andExpect(status().isOk())
+                    .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+            mockMvc.perform(get(url).accept(MemberController.COLUMNAR_JSON_VALUE).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+            mockMvc.perform(get(url).accept("application/json"))
+                    .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+        }
+    }
+
+    @Test
+    public void engineDefaultsToJpa() throws Exception {
+        for (String url : new String[]{"/v1/members", "/v2/members", "/v3/members", "/v4/members"}) {
+            mockMvc.perform(get(url))
+                    .andExpect(status().isOk());
+        }
+        for (String url : new String[]{"/v2/members", "/v3/members"}) {
+            mockMvc.perform(get(url).accept(MemberController.COLUMNAR_JSON_VALUE))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    public void engineIsCaseInsensitive() throws Exception {
+        for (String url : new String[]{"/v1/members", "/v2/members", "/v3/members", "/v4/members"}) {
+            mockMvc.perform(get(url).param(MemberController.ENGINE_PARAM, "sql"))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/v2/members").param(MemberController.ENGINE_PARAM, "oracle"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void unknownSortIsBadRequest() throws Exception {
+        for (String url : new String[]{"/v2/members", "/v3/members", "/v4/members", "/v5/members"}) {
+            mockMvc.perform(get(url).param("sort", "unknownKey"))
+                    .andExpect(status().isBadRequest());
+        }
+        mockMvc.perform(get("/v2/members").param("sort", "unknownKey").param(MemberController.ENGINE_PARAM, "SQL"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v3/members").param("sort", "unknownKey").accept(MemberController.COLUMNAR_JSON_VALUE))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void rejectInvalidBatch() throws Exception {
+        String tooMany = IntStream.range(0, 51).mapToObj(i -> "{\"ageGoe\": 1}").collect(Collectors.joining(",", "[", "]"));
+
+        for (String body : new String[]{"[]", tooMany, "[{\"ageGoe\": 1}, null]", "[{}]", "[{\"username\": \"\"}]"}) {
+            mockMvc.perform(post("/v1/members/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isBadRequest());
+        }
+        mockMvc.perform(post("/v1/members/batch").contentType(MediaType.APPLICATION_JSON).content("[{\"ageGoe\": 1}]"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void malformedBulkRowIsBadRequestWithCommittedChunks() throws Exception {
+        String body = "{\"username\": \"bulkMalformed1\", \"age\": 1}\n"
+                + "{\"username\": \"bulkMalformed2\", \"age\": 2}\n"
+                + "{\"username\": \"bulkMalformed3\", \"age\": \"three\"}\n";
+
+        JsonNode result = objectMapper.readTree(mockMvc.perform(post("/v1/members/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .param("chunkSize", "1")
+                        .param("chunksPerTransaction", "1")
+                        .content(body))
+                .andExpect(status().isBadRequest())
+                .andReturn().getResponse().getContentAsByteArray());
+
+        assertEquals(2, result.get("inserted").asLong());
+        assertEquals(2, result.get("chunks").size());
+        assertFalse(result.get("error").isNull());
+    }
+
+    @Test
+    public void compactPageRoundTripsInEveryFormat() throws Exception {
+        String withTeam = "compactMember" + System.nanoTime();
+        String withoutTeam = withTeam + "NoTeam";
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = new Team("compactTeam");
+            em.persist(team);
+            em.persist(new Member(withTeam, 10, team));
+            em.persist(new Member(withoutTeam, 20));
+        });
+
+        for (String url : new String[]{"/v2/members", "/v3/members"}) {
+            JsonNode page = objectMapper.readTree(mockMvc.perform(get(url).param("username", withTeam))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsByteArray());
+            JsonNode columnar = compact(url, withTeam, MemberController.COLUMNAR_JSON_VALUE, new ObjectMapper());
+
+            assertThat(columnar.get("columns")).extracting(JsonNode::asText)
+                    .containsExactly("memberId", "username", "age", "teamId", "teamName");
+            JsonNode row = columnar.get("rows").get(0);
+            JsonNode dto = page.get("content").get(0);
+            assertEquals(dto.get("memberId").asLong(), row.get(0).asLong());
+            assertEquals(withTeam, row.get(1).asText());
+            assertEquals(10, row.get(2).asInt());
+            assertEquals(dto.get("teamId").asLong(), row.get(3).asLong());
+            assertEquals("compactTeam", row.get(4).asText());
+            assertEquals(page.get("totalElements").asLong(), columnar.get("totalElements").asLong());
+            assertFalse(columnar.get("totalEstimated").asBoolean());
+
+            assertTrue(columnar.equals(NUMERIC, compact(url, withTeam, MemberController.SMILE_VALUE, new ObjectMapper(new SmileFactory()))));
+            assertTrue(columnar.equals(NUMERIC, compact(url, withTeam, MediaType.APPLICATION_CBOR_VALUE, new ObjectMapper(new CBORFactory()))));
+
+            JsonNode noTeam = compact(url, withoutTeam, MemberController.COLUMNAR_JSON_VALUE, new ObjectMapper())
+                    .get("rows").get(0);
+            assertTrue(noTeam.get(3).isNull());
+            assertTrue(noTeam.get(4).isNull());
+        }
+    }
+
+    private JsonNode compact(String url, String username, String mediaType, ObjectMapper reader) throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get(url).param("username", username).accept(mediaType))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertTrue(MediaType.parseMediaType(response.getContentType()).isCompatibleWith(MediaType.parseMediaType(mediaType)));
+        return reader.readTree(response.getContentAsByteArray());
+    }
+
+    private String etag(String url) throws Exception {
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+        return etag;
+    }
+}
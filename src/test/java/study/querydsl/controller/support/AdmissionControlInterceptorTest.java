@@ -0,0 +1,70 @@
+package study.querydsl.controller.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+import study.querydsl.config.P6spy.StatementCounter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlInterceptorTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    StatementCounter statementCounter = new StatementCounter();
+    AdmissionControlInterceptor interceptor = new AdmissionControlInterceptor(meterRegistry, statementCounter, 1, 1, 10, 0, 1);
+
+    @Test
+    public void limiterIsFoundByMatchedPattern() throws Exception {
+        MockHttpServletRequest first = request("/app/v1/members/", "/v1/members");
+        MockHttpServletRequest second = request("/app/v1/members", "/v1/members");
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), null));
+        assertFalse(interceptor.preHandle(second, rejected, null));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), rejected.getStatus());
+    }
+
+    @Test
+    public void sampleOnlySuccessfulQueries() throws Exception {
+        complete(HttpStatus.NOT_MODIFIED, false);
+        complete(HttpStatus.BAD_REQUEST, false);
+        complete(HttpStatus.OK, false);
+        assertEquals(1.0, limit());
+        assertEquals(0.0, inFlight());
+
+        complete(HttpStatus.OK, true);
+        assertTrue(limit() > 1.0);
+
+        double before = limit();
+        complete(HttpStatus.GATEWAY_TIMEOUT, false);
+        assertTrue(limit() < before);
+    }
+
+    private void complete(HttpStatus status, boolean queried) throws Exception {
+        MockHttpServletRequest request = request("/v2/members", "/v2/members");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(request, response, null));
+        if (queried) {
+            statementCounter.onAfterAnyExecute(null, 1_000, null);
+        }
+        response.setStatus(status.value());
+        interceptor.afterCompletion(request, response, null, null);
+    }
+
+    private double limit() {
+        return meterRegistry.get("member.search.admission.limit").tag("endpoint", "/v2/members").gauge().value();
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("member.search.admission.inflight").tag("endpoint", "/v2/members").gauge().value();
+    }
+
+    private static MockHttpServletRequest request(String uri, String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+}
@@ -0,0 +1,89 @@
+package study.querydsl.controller.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VegasLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    public void rejectWhenLimitReached() throws Exception {
+        VegasLimiter limiter = new VegasLimiter(2, 1, 10);
+
+        assertTrue(limiter.acquire(0, TimeUnit.MILLISECONDS));
+        assertTrue(limiter.acquire(0, TimeUnit.MILLISECONDS));
+        assertFalse(limiter.acquire(10, TimeUnit.MILLISECONDS));
+        assertEquals(1, limiter.getRejected());
+    }
+
+    @Test
+    public void growWhileLatencyStaysLow() throws Exception {
+        VegasLimiter limiter = new VegasLimiter(10, 1, 100);
+
+        saturate(limiter, FAST);
+
+        assertTrue(limiter.getLimit() > 10);
+    }
+
+    @Test
+    public void shrinkWhenLatencyGrows() throws Exception {
+        VegasLimiter limiter = new VegasLimiter(50, 1, 100);
+        saturate(limiter, FAST);
+        int before = limiter.getLimit();
+
+        for (int i = 0; i < 20; i++) {
+            saturate(limiter, SLOW);
+        }
+
+        assertTrue(limiter.getLimit() < before);
+    }
+
+    @Test
+    public void releaseWithoutSampleKeepsLimit() throws Exception {
+        VegasLimiter limiter = new VegasLimiter(10, 1, 100);
+
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 10; i++) {
+                assertTrue(limiter.acquire(0, TimeUnit.MILLISECONDS));
+            }
+            for (int i = 0; i < 10; i++) {
+                limiter.release();
+            }
+        }
+
+        assertEquals(10, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void droppedRequestDoesNotLowerBaseline() throws Exception {
+        VegasLimiter limiter = new VegasLimiter(10, 1, 100);
+        saturate(limiter, SLOW);
+        int before = limiter.getLimit();
+
+        assertTrue(limiter.acquire(0, TimeUnit.MILLISECONDS));
+        limiter.release(1, true);
+        saturate(limiter, SLOW);
+
+        // 실패한 요청의 짧은 지연이 기준이 됐다면 SLOW 가 깊은 대기열로 보여 한도가 더 줄었을 것이다.
+        assertTrue(limiter.getLimit() >= before - 2 * Math.max(1, Math.log10(before)));
+    }
+
+    /**
+     * 한도까지 채운 뒤 모두 같은 지연으로 끝낸다.
+     */
+    private void saturate(VegasLimiter limiter, long rtt) {
+        int limit = limiter.getLimit();
+        for (int i = 0; i < limit; i++) {
+            assertTrue(limiter.acquire(0, TimeUnit.MILLISECONDS));
+        }
+        for (int i = 0; i < limit; i++) {
+            limiter.release(rtt, false);
+        }
+    }
+}
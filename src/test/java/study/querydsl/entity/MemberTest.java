@@ -1,5 +1,10 @@
 package study.querydsl.entity;
 
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.ManagedEntity;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -7,14 +12,19 @@ import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 @SpringBootTest
 @Transactional
@@ -24,6 +34,9 @@ class MemberTest {
     @Autowired
     EntityManager em;
 
+    @PersistenceUnit
+    EntityManagerFactory emf;
+
     @Test
     public void testEntity() throws Exception {
         //given
@@ -51,4 +64,115 @@ class MemberTest {
         //then
         assertEquals(members.size(), 4);
     }
-}
\ No newline at end of file
+
+    @Test
+    @Rollback
+    public void joinLargeTeamWithoutLoading() throws Exception {
+        //given
+        Team team = new Team("largeTeam");
+        em.persist(team);
+        for (int i = 0; i < 1000; i++) {
+            em.persist(new Member("large" + i, i, team));
+        }
+        em.flush();
+        em.clear();
+
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        //when
+        Team reference = em.getReference(Team.class, team.getId());
+        Member member = new Member("newMember", 20, reference, AssociationMode.LAZY_SAFE);
+        em.persist(member);
+        em.flush();
+
+        //then
+        assertFalse(Hibernate.isInitialized(reference));
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getEntityFetchCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+        assertEquals(0, statistics.getCollectionFetchCount());
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    @Rollback
+    public void lazySafeAddsToLoadedCollection() throws Exception {
+        Team team = new Team("loadedTeam");
+        em.persist(team);
+
+        Member member = new Member("loadedMember", 10, team, AssociationMode.LAZY_SAFE);
+
+        assertTrue(team.getMembers().contains(member));
+    }
+
+    @Test
+    @Rollback
+    public void equalsDoesNotInitializeProxy() throws Exception {
+        Member member = new Member("proxyMember", 10);
+        em.persist(member);
+        em.flush();
+        em.clear();
+
+        Member loaded = em.find(Member.class, member.getId());
+        em.detach(loaded);
+        Member proxy = em.getReference(Member.class, member.getId());
+
+        Set<Member> members = new HashSet<>();
+        members.add(proxy);
+
+        assertTrue(members.contains(loaded));
+        assertEquals(loaded, proxy);
+        assertFalse(Hibernate.isInitialized(proxy));
+    }
+
+    /**
+     * gradle test 는 -PhibernateEnhance 값을 querydsl.hibernate.enhance 로 넘긴다.
+     */
+    @Test
+    public void enhancementMatchesBuild() throws Exception {
+        String enhance = System.getProperty("querydsl.hibernate.enhance");
+        assumeTrue(enhance != null, "gradle test 로 실행할 때만 확인한다.");
+        boolean enhanced = Boolean.parseBoolean(enhance);
+
+        assertEquals(enhanced, ManagedEntity.class.isAssignableFrom(Member.class));
+        assertEquals(enhanced, SelfDirtinessTracker.class.isAssignableFrom(Member.class));
+        assertEquals(enhanced, SelfDirtinessTracker.class.isAssignableFrom(Team.class));
+    }
+
+    @Test
+    @Rollback
+    public void lazySafeMoveOffInitializedTeamDoesNotLoadRoster() throws Exception {
+        Team from = new Team("moveFromTeam");
+        Team to = new Team("moveToTeam");
+        em.persist(from);
+        em.persist(to);
+        for (int i = 0; i < 100; i++) {
+            em.persist(new Member("moving" + i, i, from));
+        }
+        em.flush();
+        em.clear();
+
+        Member member = em.createQuery("select m from Member m join fetch m.team where m.username = :username", Member.class)
+                .setParameter("username", "moving0")
+                .getSingleResult();
+        Team previous = member.getTeam();
+        Team target = em.getReference(Team.class, to.getId());
+        assertTrue(Hibernate.isInitialized(previous));
+        assertFalse(Hibernate.isInitialized(previous.getMembers()));
+
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        member.changeTeam(target, AssociationMode.LAZY_SAFE);
+        em.flush();
+
+        assertFalse(Hibernate.isInitialized(previous.getMembers()));
+        assertFalse(Hibernate.isInitialized(target));
+        assertEquals(0, statistics.getCollectionLoadCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        statistics.setStatisticsEnabled(false);
+    }
+}
@@ -0,0 +1,100 @@
+package study.querydsl.replica;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "querydsl.replica.enabled=true")
+class MemberReplicaTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberReplica memberReplica;
+
+    @BeforeEach
+    public void beforeEach() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            em.persist(new Member("member5", 50));
+        });
+    }
+
+    @AfterEach
+    public void afterEach() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+        memberReplica.fullResync();
+    }
+
+    @Test
+    public void searchReplica() throws Exception {
+        memberReplica.refresh();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(40);
+        condition.setTeamName("teamB");
+
+        List<MemberTeamDto> result = memberReplica.searchReplica(condition).get();
+        assertThat(result)
+                .extracting("username")
+                .containsExactly("member3", "member4");
+    }
+
+    @Test
+    public void incrementalRefresh() throws Exception {
+        memberReplica.refresh();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamB = em.createQuery("select t from Team t where t.name = 'teamB'", Team.class)
+                    .getSingleResult();
+            em.persist(new Member("member6", 35, teamB));
+        });
+        memberReplica.refresh();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        assertThat(memberReplica.searchReplica(condition).get())
+                .extracting("username")
+                .containsExactly("member3", "member4", "member6");
+    }
+
+    @Test
+    public void checkConsistency() throws Exception {
+        memberReplica.refresh();
+
+        ReplicaConsistency consistency = memberReplica.checkConsistency(new MemberSearchCondition());
+
+        assertTrue(consistency.isConsistent(), consistency.toString());
+        assertEquals(5, consistency.getReplicaCount());
+    }
+}
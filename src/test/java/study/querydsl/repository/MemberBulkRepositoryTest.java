@@ -0,0 +1,102 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.BulkIngestResult;
+import study.querydsl.dto.MemberIngestRow;
+
+import javax.persistence.EntityManager;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+class MemberBulkRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    TeamIdCache teamIdCache;
+
+    @Autowired
+    MemberBulkRepository memberBulkRepository;
+
+    @AfterEach
+    public void afterEach() {
+        transactionTemplate.executeWithoutResult(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+        });
+    }
+
+    @Test
+    public void insertInChunks() throws Exception {
+        List<MemberIngestRow> rows = IntStream.range(0, 25)
+                .mapToObj(i -> new MemberIngestRow("bulk" + i, i, i % 2 == 0 ? "teamA" : "teamB"))
+                .collect(Collectors.toList());
+
+        BulkIngestResult result = memberBulkRepository.insert(rows.iterator(), 10, 2);
+
+        assertEquals(25, result.getInserted());
+        assertEquals(0, result.getFailed());
+        assertThat(result.getChunks())
+                .extracting("received")
+                .containsExactly(10, 10, 5);
+
+        Long teamACount = transactionTemplate.execute(status -> em.createQuery(
+                        "select count(m) from Member m join m.team t where t.name = 'teamA'", Long.class)
+                .getSingleResult());
+        assertEquals(13, teamACount);
+    }
+
+    @Test
+    public void unreadableRowKeepsCommittedChunks() throws Exception {
+        Iterator<MemberIngestRow> rows = IntStream.range(0, 25)
+                .mapToObj(i -> {
+                    if (i == 23) {
+                        throw new IllegalStateException("malformed row 23");
+                    }
+                    return new MemberIngestRow("bulk" + i, i, "teamA");
+                })
+                .iterator();
+
+        BulkIngestAbortedException e = assertThrows(BulkIngestAbortedException.class,
+                () -> memberBulkRepository.insert(rows, 5, 2));
+
+        BulkIngestResult result = e.getResult();
+        assertEquals(20, result.getInserted());
+        assertThat(result.getChunks()).extracting("inserted").containsExactly(5, 5, 5, 5);
+        assertThat(result.getError()).contains("malformed row 23");
+        Long count = transactionTemplate.execute(status -> queryFactory
+                .select(member.count())
+                .from(member)
+                .fetchOne());
+        assertEquals(20, count);
+    }
+
+    @Test
+    public void bulkDeleteInvalidatesTeamIdCache() throws Exception {
+        Long deleted = teamIdCache.resolve("teamA");
+
+        afterEach();
+
+        assertNotEquals(deleted, teamIdCache.resolve("teamA"));
+    }
+}
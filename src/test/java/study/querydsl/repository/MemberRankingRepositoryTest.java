@@ -0,0 +1,80 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberAgePercentileDto;
+import study.querydsl.dto.MemberAgeRankDto;
+import study.querydsl.dto.MemberRunningCountDto;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@Transactional
+class MemberRankingRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRankingRepository memberRankingRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("rankTeamA");
+        Team teamB = new Team("rankTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("rankA1", 10, teamA));
+        em.persist(new Member("rankA2", 20, teamA));
+        em.persist(new Member("rankA3", 30, teamA));
+        em.persist(new Member("rankA4", 30, teamA));
+        em.persist(new Member("rankB1", 40, teamB));
+        em.persist(new Member("rankB2", 50, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void topByAgePerTeam() throws Exception {
+        List<MemberAgeRankDto> result = memberRankingRepository.findTopByAgePerTeam(2, "rankTeamA");
+
+        assertThat(result)
+                .extracting("username", "rank")
+                .containsExactly(tuple("rankA3", 1L), tuple("rankA4", 2L));
+    }
+
+    @Test
+    public void atOrAboveTeamAverage() throws Exception {
+        List<MemberTeamDto> result = memberRankingRepository.findAtOrAboveTeamAverage("rankTeamA");
+
+        // 평균 22.5
+        assertThat(result).extracting("username").containsExactly("rankA3", "rankA4");
+    }
+
+    @Test
+    public void agePercentiles() throws Exception {
+        List<MemberAgePercentileDto> result = memberRankingRepository.findAgePercentiles("rankTeamB");
+
+        assertThat(result).extracting("username", "percentRank", "teamAverageAge")
+                .containsExactly(tuple("rankB1", 0.0, 45.0), tuple("rankB2", 1.0, 45.0));
+    }
+
+    @Test
+    public void runningCounts() throws Exception {
+        List<MemberRunningCountDto> result = memberRankingRepository.findRunningCounts("rankTeamA");
+
+        assertThat(result).extracting("runningCount").containsExactly(1L, 2L, 3L, 4L);
+        assertThat(result).extracting("teamCount").containsOnly(4L);
+    }
+}
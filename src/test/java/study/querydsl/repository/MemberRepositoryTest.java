@@ -5,6 +5,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
@@ -105,6 +106,25 @@ class MemberRepositoryTest {
                 .containsExactly("member1", "member2", "member3");
     }
 
+    @Test
+    public void searchPageDeferred() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 20; i++) {
+            em.persist(new Member("deferred" + i, i, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(3, 4, Sort.by(Sort.Order.desc("age"), Sort.Order.asc("username")));
+
+        Page<MemberTeamDto> deferred = memberRepository.searchPageDeferred(condition, pageRequest);
+        Page<MemberTeamDto> complex = memberRepository.searchPageComplex(condition, pageRequest);
+
+        assertThat(deferred.getContent()).hasSize(4);
+        assertThat(deferred.getContent()).isEqualTo(complex.getContent());
+        assertEquals(complex.getTotalElements(), deferred.getTotalElements());
+    }
+
     /**
      * 조인을 하거나 쿼리가 복잡해지면 QuerydslPredicateExecutor 사용이 불가능하다.
      */
@@ -0,0 +1,169 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.DeadlineExceededException;
+import study.querydsl.repository.support.QueryDeadline;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@Transactional
+class MemberSqlRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberSqlRepository memberSqlRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("sqlTeamA");
+        Team teamB = new Team("sqlTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("sqlMember" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void searchSameAsJpa() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("sqlTeamB");
+        condition.setAgeGoe(30);
+
+        List<MemberTeamDto> result = memberSqlRepository.search(condition);
+
+        assertThat(result).extracting("username")
+                .containsExactlyInAnyOrder("sqlMember3", "sqlMember5", "sqlMember7", "sqlMember9");
+        assertThat(sorted(result)).isEqualTo(sorted(memberRepository.search(condition)));
+    }
+
+    @Test
+    public void searchPageComplex() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("sqlTeamA");
+        PageRequest pageRequest = PageRequest.of(0, 3);
+
+        Page<MemberTeamDto> result = memberSqlRepository.searchPageComplex(condition, pageRequest);
+
+        assertThat(result.getContent()).hasSize(3);
+        assertThat(result.getContent()).extracting("teamName").containsOnly("sqlTeamA");
+        assertThat(result.getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    public void countWithoutTeamCondition() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("sqlMember4");
+
+        Page<MemberTeamDto> result = memberSqlRepository.searchPageSimple(condition, PageRequest.of(0, 1));
+
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(result.getContent().get(0).getTeamName()).isEqualTo("sqlTeamA");
+    }
+
+    @Test
+    public void searchBatchMatchesSingleSearches() throws Exception {
+        List<MemberSearchCondition> conditions = List.of(
+                condition("sqlMember1", null, null, null),
+                condition(null, "sqlTeamB", 30, null),
+                condition("sqlMember2", null, null, null),
+                condition("sqlMember1", null, null, null),
+                condition(null, "sqlTeamA", null, 20),
+                condition("sqlMemberX", null, null, null));
+
+        List<List<MemberTeamDto>> result = memberSqlRepository.searchBatch(conditions, 100);
+
+        assertThat(result).hasSize(conditions.size());
+        for (int i = 0; i < conditions.size(); i++) {
+            assertThat(result.get(i)).isEqualTo(sorted(memberSqlRepository.search(conditions.get(i))));
+        }
+        assertThat(result.get(0)).extracting("username").containsExactly("sqlMember1");
+        assertThat(result.get(4)).extracting("username").containsExactly("sqlMember0", "sqlMember2");
+        assertThat(result.get(5)).isEmpty();
+    }
+
+    @Test
+    public void searchBatchCapsRowsPerCondition() throws Exception {
+        List<MemberSearchCondition> conditions = List.of(
+                condition(null, "sqlTeamA", null, null),
+                condition(null, "sqlTeamB", null, null),
+                condition("sqlMember1", null, null, null));
+
+        List<List<MemberTeamDto>> result = memberSqlRepository.searchBatch(conditions, 1);
+
+        for (int i = 0; i < conditions.size(); i++) {
+            assertThat(result.get(i)).containsExactly(sorted(memberSqlRepository.search(conditions.get(i))).get(0));
+        }
+    }
+
+    @Test
+    public void searchBatchCapsEachUsername() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("batchHeavy", i));
+        }
+        em.persist(new Member("batchLight", 1));
+        em.flush();
+        em.clear();
+        List<MemberSearchCondition> conditions = List.of(
+                condition("batchHeavy", null, null, null),
+                condition("batchLight", null, null, null));
+
+        List<List<MemberTeamDto>> result = memberSqlRepository.searchBatch(conditions, 2);
+
+        assertThat(result.get(0)).isEqualTo(sorted(memberSqlRepository.search(conditions.get(0))).subList(0, 2));
+        assertThat(result.get(1)).isEqualTo(memberSqlRepository.search(conditions.get(1)));
+        assertThat(result.get(1)).hasSize(1);
+    }
+
+    @Test
+    public void searchBatchRunsWithinDeadline() throws Exception {
+        QueryDeadline.start(Duration.ZERO, Duration.ZERO);
+        try {
+            assertThrows(DeadlineExceededException.class,
+                    () -> memberSqlRepository.searchBatch(List.of(condition(null, "sqlTeamA", null, null)), 100));
+        } finally {
+            QueryDeadline.clear();
+        }
+    }
+
+    private static MemberSearchCondition condition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+
+    private static List<MemberTeamDto> sorted(List<MemberTeamDto> result) {
+        return result.stream()
+                .sorted(Comparator.comparing(MemberTeamDto::getMemberId))
+                .collect(Collectors.toList());
+    }
+}
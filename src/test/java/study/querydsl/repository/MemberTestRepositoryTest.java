@@ -0,0 +1,289 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CountQueryDeriver;
+import study.querydsl.repository.support.HintedJPAQuery;
+import study.querydsl.repository.support.HintedJPAQueryFactory;
+import study.querydsl.repository.support.InvalidSortException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class MemberTestRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void beforeEach() {
+        queryFactory = new JPAQueryFactory(em);
+
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+    }
+
+    @Test
+    public void applyPaginationWithDerivedCount() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        Page<Member> result = memberTestRepository.applyPagination(condition, PageRequest.of(0, 1));
+
+        assertEquals(2, result.getTotalElements());
+        assertThat(result.getContent()).hasSize(1);
+    }
+
+    @Test
+    public void countQueryDropsUnreferencedLeftJoin() throws Exception {
+        JPAQuery<Member> contentQuery = queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(member.age.goe(20))
+                .orderBy(member.username.desc())
+                .offset(1)
+                .limit(2);
+
+        JPAQuery<?> countQuery = new CountQueryDeriver(em).createCountQuery(contentQuery);
+
+        assertThat(countQuery.toString())
+                .doesNotContain("join")
+                .doesNotContain("order by");
+        assertEquals(3L, new CountQueryDeriver(em).derive(contentQuery).getAsLong());
+    }
+
+    @Test
+    public void countQueryKeepsReferencedLeftJoin() throws Exception {
+        JPAQuery<Member> contentQuery = queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(team.name.eq("teamA"));
+
+        JPAQuery<?> countQuery = new CountQueryDeriver(em).createCountQuery(contentQuery);
+
+        assertThat(countQuery.toString()).contains("left join");
+        assertEquals(2L, new CountQueryDeriver(em).derive(contentQuery).getAsLong());
+    }
+
+    @Test
+    public void countGroupByQuery() throws Exception {
+        JPAQuery<String> contentQuery = queryFactory
+                .select(team.name)
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name);
+
+        assertEquals(2L, new CountQueryDeriver(em).derive(contentQuery).getAsLong());
+    }
+
+    @Test
+    public void countSingleKeyGroupByWithCountDistinct() throws Exception {
+        em.persist(new Member("noTeamMember", 50));
+        JPAQuery<String> contentQuery = queryFactory
+                .select(team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .groupBy(team.name);
+
+        JPAQuery<?> countQuery = new CountQueryDeriver(em).createCountQuery(contentQuery);
+
+        assertThat(countQuery.toString())
+                .contains("count(distinct team.name)")
+                .doesNotContain("group by");
+        assertEquals(contentQuery.fetch().size(), new CountQueryDeriver(em).derive(contentQuery).getAsLong());
+    }
+
+    @Test
+    public void countDistinctValueWithCountDistinct() throws Exception {
+        JPAQuery<Integer> contentQuery = queryFactory
+                .select(member.age)
+                .distinct()
+                .from(member);
+
+        JPAQuery<?> countQuery = new CountQueryDeriver(em).createCountQuery(contentQuery);
+
+        assertThat(countQuery.toString()).contains("count(distinct member1.age)");
+        assertEquals(contentQuery.fetch().size(), new CountQueryDeriver(em).derive(contentQuery).getAsLong());
+    }
+
+    @Test
+    public void countGroupByWithHavingByFetchingKeys() throws Exception {
+        JPAQuery<String> contentQuery = queryFactory
+                .select(team.name)
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)
+                .having(member.count().gt(1));
+
+        JPAQuery<?> countQuery = new CountQueryDeriver(em).createCountQuery(contentQuery);
+
+        assertThat(countQuery.toString()).contains("group by").contains("having");
+        assertEquals(contentQuery.fetch().size(), new CountQueryDeriver(em).derive(contentQuery).getAsLong());
+    }
+
+    @Test
+    public void applyPaginationSortsInDatabase() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(40);
+
+        Page<Member> result = memberTestRepository.applyPagination(condition,
+                PageRequest.of(0, 3, Sort.by(Sort.Order.desc("age"))));
+
+        assertThat(result.getContent()).hasSize(3);
+        assertThat(result.getContent()).extracting(Member::getAge)
+                .isSortedAccordingTo(Comparator.reverseOrder());
+        assertEquals(40, result.getContent().get(0).getAge());
+    }
+
+    @Test
+    public void sortAddsIdTieBreaker() throws Exception {
+        JPAQuery<Member> query = queryFactory.selectFrom(member)
+                .orderBy(MemberSort.ENTITY.toOrderSpecifiers(Sort.by("username")));
+
+        assertThat(query.toString()).contains("order by member1.username asc, member1.id asc");
+    }
+
+    @Test
+    public void rejectUnindexedSort() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        assertThrows(InvalidSortException.class, () ->
+                memberTestRepository.searchPageByApplyPage(condition, PageRequest.of(0, 3, Sort.by("team.name"))));
+    }
+
+    @Test
+    public void deferredPaginationKeepsIdOrder() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(1, 2, Sort.by(Sort.Order.desc("age")));
+
+        Page<Member> deferred = memberTestRepository.searchPageDeferred(condition, pageRequest);
+        Page<Member> applied = memberTestRepository.applyPagination(condition, pageRequest);
+
+        assertThat(deferred.getContent()).containsExactlyElementsOf(applied.getContent());
+        assertEquals(applied.getTotalElements(), deferred.getTotalElements());
+    }
+
+    @Test
+    public void readOnlyQueryAnnotation() throws Exception {
+        em.flush();
+        em.clear();
+
+        List<Member> result = memberTestRepository.basicSelectFrom();
+
+        Session session = em.unwrap(Session.class);
+        assertThat(result).isNotEmpty();
+        assertThat(result).allMatch(session::isReadOnly);
+    }
+
+    @Test
+    public void readOnlyQueryFlag() throws Exception {
+        em.flush();
+        em.clear();
+        HintedJPAQueryFactory hintedQueryFactory = new HintedJPAQueryFactory(em);
+
+        List<Member> managed = hintedQueryFactory.selectFrom(member).fetch();
+        em.clear();
+        List<Member> readOnly = ((HintedJPAQuery<Member>) hintedQueryFactory.selectFrom(member)).readOnly(100).fetch();
+
+        Session session = em.unwrap(Session.class);
+        assertThat(managed).noneMatch(session::isReadOnly);
+        assertThat(readOnly).isNotEmpty();
+        assertThat(readOnly).allMatch(session::isReadOnly);
+    }
+
+    @Test
+    public void fetchPlanLoadsOnlyWhatItNames() throws Exception {
+        em.flush();
+        em.clear();
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        List<Member> memberOnly = memberTestRepository.search(condition, MemberFetchPlan.MEMBER_ONLY);
+        assertThat(memberOnly).isNotEmpty();
+        assertThat(memberOnly).noneMatch(m -> util.isLoaded(m.getTeam()));
+        em.clear();
+
+        List<Member> withTeam = memberTestRepository.search(condition, MemberFetchPlan.WITH_TEAM);
+        assertThat(withTeam).allMatch(m -> util.isLoaded(m.getTeam()));
+        assertThat(withTeam).noneMatch(m -> util.isLoaded(m.getTeam(), "members"));
+        em.clear();
+
+        List<Member> withRoster = memberTestRepository.search(condition, MemberFetchPlan.WITH_TEAM_AND_ROSTER);
+        assertThat(withRoster).hasSameSizeAs(withTeam);
+        assertThat(withRoster).allMatch(m -> util.isLoaded(m.getTeam(), "members"));
+    }
+
+    @Test
+    public void fetchPlanPaginationCountsRoots() throws Exception {
+        em.flush();
+        em.clear();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Order.asc("age")));
+
+        Page<Member> memberOnly = memberTestRepository.searchPage(condition, pageRequest, MemberFetchPlan.MEMBER_ONLY);
+        Page<Member> withTeam = memberTestRepository.searchPage(condition, pageRequest, MemberFetchPlan.WITH_TEAM);
+        Page<Member> withRoster = memberTestRepository.searchPage(condition, pageRequest, MemberFetchPlan.WITH_TEAM_AND_ROSTER);
+
+        assertThat(withTeam.getContent()).containsExactlyElementsOf(memberOnly.getContent());
+        assertThat(withRoster.getContent()).containsExactlyElementsOf(memberOnly.getContent());
+        assertEquals(memberOnly.getTotalElements(), withTeam.getTotalElements());
+        assertEquals(memberOnly.getTotalElements(), withRoster.getTotalElements());
+    }
+
+    @Test
+    public void lazyTeamsInitializeInOneStatement() throws Exception {
+        em.flush();
+        em.clear();
+        List<Member> members = memberTestRepository.search(new MemberSearchCondition(), MemberFetchPlan.MEMBER_ONLY);
+        assertThat(members).filteredOn(m -> m.getTeam() != null).hasSizeGreaterThan(1);
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            members.stream()
+                    .filter(m -> m.getTeam() != null)
+                    .forEach(m -> assertNotNull(m.getTeam().getName()));
+
+            assertEquals(1, statistics.getPrepareStatementCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+class PredicateGuardTest {
+
+    @Test
+    public void valuesAreSortedIntoOneInList() throws Exception {
+        Predicate a = PredicateGuard.prefixOrIn(member.username, List.of("member2", "member1", "member2")).orElseThrow();
+        Predicate b = PredicateGuard.prefixOrIn(member.username, List.of("member1", "member2")).orElseThrow();
+
+        assertEquals(a, b);
+        assertEquals(member.username.in("member1", "member2"), a);
+    }
+
+    @Test
+    public void trailingWildcardIsPrefixMatch() throws Exception {
+        Predicate predicate = PredicateGuard.prefixOrIn(member.username, List.of("mem*")).orElseThrow();
+
+        assertEquals(member.username.startsWith("mem"), predicate);
+    }
+
+    @Test
+    public void rejectLeadingWildcard() throws Exception {
+        assertThrows(InvalidPredicateException.class,
+                () -> PredicateGuard.prefixOrIn(member.username, List.of("*ber1")));
+        assertThrows(InvalidPredicateException.class,
+                () -> PredicateGuard.prefixOrIn(member.username, List.of("*")));
+        assertThrows(InvalidPredicateException.class,
+                () -> PredicateGuard.prefixOrIn(member.username, List.of("me*ber")));
+    }
+
+    @Test
+    public void rejectOversizedInList() throws Exception {
+        List<Integer> ages = IntStream.rangeClosed(0, PredicateGuard.MAX_IN_SIZE).boxed().collect(Collectors.toList());
+
+        assertThrows(InvalidPredicateException.class, () -> PredicateGuard.in(member.age, ages));
+        assertTrue(PredicateGuard.in(member.age, Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    public void canonicalOrderIgnoresBindingOrder() throws Exception {
+        Predicate first = new BooleanBuilder()
+                .and(member.username.eq("member1"))
+                .and(member.age.in(10, 20))
+                .and(member.team.name.startsWith("team"));
+        Predicate second = new BooleanBuilder()
+                .and(member.team.name.startsWith("team"))
+                .and(member.username.eq("member1"))
+                .and(member.age.in(10, 20));
+
+        assertEquals(PredicateGuard.canonical(first), PredicateGuard.canonical(second));
+        assertThat(PredicateGuard.canonical(first).toString())
+                .isEqualTo(PredicateGuard.canonical(second).toString());
+    }
+
+    @Test
+    public void boundTeamPathIsMovedOntoJoinAlias() throws Exception {
+        Predicate bound = PredicateGuard.prefixOrIn(member.team.name, List.of("team*")).orElseThrow();
+
+        Operation<?> rebased = (Operation<?>) PredicateGuard.onAlias(bound, member.team, team);
+
+        assertEquals(team.name.getMetadata(), ((Path<?>) rebased.getArg(0)).getMetadata());
+        assertNull(PredicateGuard.onAlias(null, member.team, team));
+    }
+}
@@ -0,0 +1,132 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberSqlRepository;
+import study.querydsl.repository.MemberTestRepository;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class QueryDeadlineTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Autowired
+    MemberSqlRepository memberSqlRepository;
+
+    @BeforeEach
+    public void before() {
+        Team team = new Team("deadlineTeam");
+        em.persist(team);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("deadline" + i, i, team));
+        }
+    }
+
+    @AfterEach
+    public void after() {
+        QueryDeadline.clear();
+    }
+
+    @Test
+    public void remainingBudgetBecomesTimeoutHint() throws Exception {
+        QueryDeadline.start(Duration.ofMillis(1500), Duration.ZERO);
+
+        Object timeout = queryFactory.selectFrom(member).createQuery().getHints().get(QueryDeadline.TIMEOUT_HINT);
+
+        // 초 단위로 올림
+        assertEquals(2000, ((Number) timeout).intValue());
+    }
+
+    @Test
+    public void noHintWithoutDeadline() throws Exception {
+        assertFalse(queryFactory.selectFrom(member).createQuery().getHints().containsKey(QueryDeadline.TIMEOUT_HINT));
+    }
+
+    @Test
+    public void expiredBudgetFailsBeforeQuery() throws Exception {
+        QueryDeadline.start(Duration.ZERO, Duration.ZERO);
+
+        assertThrows(DeadlineExceededException.class,
+                () -> memberRepository.search(new MemberSearchCondition()));
+    }
+
+    @Test
+    public void skipCountWhenBudgetIsShort() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("deadlineTeam");
+
+        QueryDeadline.start(Duration.ofSeconds(5), Duration.ofSeconds(10));
+        Page<Member> estimated = memberTestRepository.applyPagination(condition, PageRequest.of(0, 2));
+        Page<MemberTeamDto> complex = memberRepository.searchPageComplex(condition, PageRequest.of(1, 2));
+
+        // 꽉 찬 페이지 뒤에 최소 1건이 더 있다고 본다.
+        assertEquals(3, estimated.getTotalElements());
+        assertEquals(5, complex.getTotalElements());
+        assertThat(estimated).isInstanceOf(EstimatedPage.class);
+        // 마지막 페이지는 내용만으로 전체 건수가 정해진다.
+        assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(2, 2))).isNotInstanceOf(EstimatedPage.class);
+
+        QueryDeadline.clear();
+        assertEquals(5, memberTestRepository.applyPagination(condition, PageRequest.of(0, 2)).getTotalElements());
+    }
+
+    @Test
+    public void expiredBudgetFailsSqlPageSearch() throws Exception {
+        QueryDeadline.start(Duration.ZERO, Duration.ZERO);
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 2);
+
+        assertThrows(DeadlineExceededException.class, () -> memberSqlRepository.search(condition));
+        assertThrows(DeadlineExceededException.class, () -> memberSqlRepository.searchPageSimple(condition, pageRequest));
+        assertThrows(DeadlineExceededException.class, () -> memberSqlRepository.searchPageComplex(condition, pageRequest));
+        assertThrows(DeadlineExceededException.class, () -> memberSqlRepository.searchPageDeferred(condition, pageRequest));
+    }
+
+    @Test
+    public void sqlPageSearchSkipsCountWhenBudgetIsShort() throws Exception {
+        em.flush();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("deadlineTeam");
+
+        QueryDeadline.start(Duration.ofSeconds(5), Duration.ofSeconds(10));
+        Page<MemberTeamDto> simple = memberSqlRepository.searchPageSimple(condition, PageRequest.of(0, 2));
+        Page<MemberTeamDto> deferred = memberSqlRepository.searchPageDeferred(condition, PageRequest.of(0, 2));
+
+        assertThat(simple).isInstanceOf(EstimatedPage.class);
+        assertThat(deferred).isInstanceOf(EstimatedPage.class);
+        assertEquals(3, simple.getTotalElements());
+
+        QueryDeadline.clear();
+        assertEquals(5, memberSqlRepository.searchPageSimple(condition, PageRequest.of(0, 2)).getTotalElements());
+    }
+}
@@ -0,0 +1,163 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void concurrentCallsShareOneExecution() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>("test", Duration.ofSeconds(5), meterRegistry);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("key", () -> {
+                executions.incrementAndGet();
+                await(release);
+                return 42;
+            })));
+        }
+        while (meterRegistry.counter("test.calls", "result", "coalesced").count()
+                + meterRegistry.counter("test.calls", "result", "executed").count() < 8) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        for (Future<Integer> result : results) {
+            assertEquals(42, result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, executions.get());
+        assertEquals(7.0 / 8, meterRegistry.get("test.coalescing.ratio").gauge().value(), 0.0001);
+        assertEquals(0, singleFlight.inFlightCount());
+        executor.shutdown();
+    }
+
+    @Test
+    public void failureIsPropagatedAndNotCached() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>("test", Duration.ofSeconds(5), meterRegistry);
+
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals(1, singleFlight.execute("key", () -> 1));
+    }
+
+    @Test
+    public void followerTimesOut() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>("test", Duration.ofMillis(50), meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        Future<Integer> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            started.countDown();
+            await(release);
+            return 1;
+        }));
+        started.await();
+
+        assertThrows(CoalescingTimeoutException.class, () -> singleFlight.execute("key", () -> 2));
+
+        release.countDown();
+        assertEquals(1, leader.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    public void followerWaitIsCappedByDeadline() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>("test", Duration.ofSeconds(30), meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        Future<Integer> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            started.countDown();
+            await(release);
+            return 1;
+        }));
+        started.await();
+
+        QueryDeadline.start(Duration.ofMillis(100), Duration.ZERO);
+        try {
+            long start = System.nanoTime();
+            assertThrows(CoalescingTimeoutException.class, () -> singleFlight.execute("key", () -> 2));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        } finally {
+            QueryDeadline.clear();
+        }
+
+        release.countDown();
+        assertEquals(1, leader.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    public void unshareableResultIsNotShared() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>("test", Duration.ofSeconds(5), meterRegistry, result -> result >= 0);
+        assertEquals(2, followerResult(singleFlight, () -> -1, () -> 2));
+        assertEquals(1, meterRegistry.counter("test.calls", "result", "unshared").count());
+    }
+
+    @Test
+    public void deadlineFailureIsNotShared() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>("test", Duration.ofSeconds(5), meterRegistry);
+        assertEquals(2, followerResult(singleFlight, () -> {
+            throw new DeadlineExceededException("leader budget");
+        }, () -> 2));
+    }
+
+    /**
+     * leader 가 실행 중일 때 follower 를 붙이고, leader 를 끝낸 뒤 follower 가 받은 값을 돌려준다.
+     */
+    private Integer followerResult(SingleFlight<String, Integer> singleFlight,
+                                   Supplier<Integer> leaderCall, Supplier<Integer> followerCall) throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        executor.submit(() -> singleFlight.execute("key", () -> {
+            started.countDown();
+            await(release);
+            return leaderCall.get();
+        }));
+        started.await();
+        Future<Integer> follower = executor.submit(() -> singleFlight.execute("key", followerCall));
+        while (meterRegistry.counter("test.calls", "result", "coalesced").count() < 1) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        try {
+            return follower.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
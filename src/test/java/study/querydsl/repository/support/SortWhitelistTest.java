@@ -0,0 +1,38 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import study.querydsl.repository.MemberSort;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+
+class SortWhitelistTest {
+
+    @Test
+    public void tieBreakerFollowsLastDirection() throws Exception {
+        assertArrayEquals(new Object[]{member.username.desc(), member.id.desc()},
+                MemberSort.ENTITY.toOrderSpecifiers(Sort.by(Sort.Order.desc("username"))));
+        assertArrayEquals(new Object[]{member.age.desc(), member.id.desc()},
+                MemberSort.ENTITY.toOrderSpecifiers(Sort.by(Sort.Order.desc("age"))));
+        assertArrayEquals(new Object[]{member.age.asc(), member.id.asc()},
+                MemberSort.ENTITY.toOrderSpecifiers(Sort.by(Sort.Order.asc("age"))));
+    }
+
+    @Test
+    public void unsortedEndsWithAscendingTieBreaker() throws Exception {
+        assertArrayEquals(new Object[]{member.id.asc()}, MemberSort.ENTITY.toOrderSpecifiers(Sort.unsorted()));
+    }
+
+    @Test
+    public void tieBreakerIsNotRepeated() throws Exception {
+        assertArrayEquals(new Object[]{member.id.desc()},
+                MemberSort.ENTITY.toOrderSpecifiers(Sort.by(Sort.Order.desc("memberId"))));
+    }
+
+    @Test
+    public void rejectUnknownKey() throws Exception {
+        assertThrows(InvalidSortException.class,
+                () -> MemberSort.ENTITY.toOrderSpecifiers(Sort.by("password")));
+    }
+}
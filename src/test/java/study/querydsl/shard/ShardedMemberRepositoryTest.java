@@ -0,0 +1,171 @@
+package study.querydsl.shard;
+
+import com.querydsl.sql.H2Templates;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.InvalidSortException;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShardedMemberRepositoryTest {
+
+    private static final int SHARDS = 3;
+    private static final int TEAMS = 6;
+    private static final int MEMBERS = 60;
+
+    List<Shard> shards;
+    ShardRouter router;
+    ShardedMemberRepository repository;
+
+    @BeforeEach
+    public void before() {
+        com.querydsl.sql.Configuration configuration = new com.querydsl.sql.Configuration(H2Templates.builder().build());
+        String run = UUID.randomUUID().toString();
+        shards = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) {
+            DataSource dataSource = DataSourceBuilder.create()
+                    .url("jdbc:h2:mem:shard" + i + "-" + run + ";DB_CLOSE_DELAY=-1")
+                    .username("sa")
+                    .password("")
+                    .build();
+            DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("shard/schema.sql")), dataSource);
+            shards.add(new Shard(i, dataSource, configuration));
+        }
+        router = new ShardRouter(shards, Map.of("team0", 2));
+        repository = new ShardedMemberRepository(router, 4);
+
+        for (long id = 1; id <= MEMBERS; id++) {
+            long teamId = id % TEAMS;
+            repository.insert(new MemberTeamDto(id, "member" + id, (int) (id % 50), teamId + 1000, "team" + teamId));
+        }
+    }
+
+    @AfterEach
+    public void after() throws Exception {
+        repository.close();
+        router.close();
+    }
+
+    @Test
+    public void teamSearchRoutesToOneShard() throws Exception {
+        assertThat(router.indexOf("team0")).isEqualTo(2);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("team0");
+
+        List<MemberTeamDto> result = repository.search(condition);
+
+        assertThat(result).hasSize(MEMBERS / TEAMS);
+        assertThat(result).extracting("teamName").containsOnly("team0");
+    }
+
+    @Test
+    public void fanOutMergesPagesInOrder() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Page<MemberTeamDto> page = repository.searchPage(condition, PageRequest.of(2, 7));
+
+        assertThat(page.getTotalElements()).isEqualTo(MEMBERS);
+        assertThat(page.getContent()).extracting("memberId")
+                .containsExactlyElementsOf(LongStream.rangeClosed(15, 21).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void fanOutMergesBySort() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(10);
+
+        Page<MemberTeamDto> page = repository.searchPage(condition, PageRequest.of(0, 100, Sort.by(Sort.Order.desc("age"))));
+
+        List<MemberTeamDto> expected = new ArrayList<>(page.getContent());
+        expected.sort((a, b) -> a.getAge() != b.getAge()
+                ? Integer.compare(b.getAge(), a.getAge())
+                : b.getMemberId().compareTo(a.getMemberId()));
+        assertThat(page.getContent()).isEqualTo(expected);
+        assertThat(page.getContent()).extracting("age").allMatch(age -> (Integer) age <= 10);
+        assertThat(page.getTotalElements()).isEqualTo(repository.count(condition));
+    }
+
+    @Test
+    public void moveTeam() throws Exception {
+        TeamRebalancer rebalancer = new TeamRebalancer(router);
+        int target = (router.indexOf("team1") + 1) % SHARDS;
+
+        long moved = rebalancer.moveTeam("team1", target);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("team1");
+        assertThat(moved).isEqualTo(MEMBERS / TEAMS);
+        assertThat(router.indexOf("team1")).isEqualTo(target);
+        assertThat(repository.search(condition)).hasSize(MEMBERS / TEAMS);
+        assertThat(repository.count(new MemberSearchCondition())).isEqualTo(MEMBERS);
+    }
+
+    @Test
+    public void movedPlacementSurvivesRestart() throws Exception {
+        int original = router.indexOf("team1");
+        int target = (original + 1) % SHARDS;
+        new TeamRebalancer(router).moveTeam("team1", target);
+
+        // 재시작하거나 다른 인스턴스가 같은 샤드들로 라우터를 만든다. 설정값은 옮긴 배치를 덮지 않는다.
+        ShardRouter restarted = new ShardRouter(shards, Map.of("team0", 2, "team1", original));
+        ShardedMemberRepository restartedRepository = new ShardedMemberRepository(restarted, 2);
+        try {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("team1");
+
+            assertThat(restarted.indexOf("team1")).isEqualTo(target);
+            assertThat(restarted.placements()).containsEntry("team1", target).containsEntry("team0", 2);
+            assertThat(restartedRepository.search(condition)).hasSize(MEMBERS / TEAMS);
+        } finally {
+            restartedRepository.close();
+        }
+    }
+
+    @Test
+    public void placementIsCachedUntilInvalidated() throws Exception {
+        ShardRouter other = new ShardRouter(shards, Map.of());
+        int original = other.indexOf("team1");
+        int target = (original + 1) % SHARDS;
+
+        new TeamRebalancer(router).moveTeam("team1", target);
+
+        assertThat(router.indexOf("team1")).isEqualTo(target);
+        assertThat(other.indexOf("team1")).isEqualTo(original);
+        other.invalidate();
+        assertThat(other.indexOf("team1")).isEqualTo(target);
+    }
+
+    @Test
+    public void rejectUnknownTarget() throws Exception {
+        TeamRebalancer rebalancer = new TeamRebalancer(router);
+
+        assertThrows(IllegalArgumentException.class, () -> rebalancer.moveTeam("team1", SHARDS));
+        assertThrows(IllegalArgumentException.class, () -> rebalancer.moveTeam("team1", -1));
+    }
+
+    @Test
+    public void rejectUnknownSort() throws Exception {
+        assertThrows(InvalidSortException.class, () -> repository.searchPage(new MemberSearchCondition(),
+                PageRequest.of(0, 10, Sort.by("teamName"))));
+    }
+}